@@ -0,0 +1,164 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.util.StringUtils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Drops all tables, views and materialized views of a schema in dependency order.
+ * <p>
+ * The drop graph is built from {@code system.tables} in a single query: {@code dependencies_table} links a source table
+ * to the materialized views reading from it, the {@code TO} clause of a materialized view links it to its target table
+ * and the {@code Distributed} engine arguments link a distributed table to its local table. Objects are then dropped in
+ * waves, where every object of a wave only has dependents in earlier waves. The objects of a wave are dropped
+ * concurrently on up to {@code cleanParallelism} connections, {@code cleanBatchSize} tables per {@code DROP TABLE}.
+ */
+@CustomLog
+public class ClickHouseCleaner {
+    private static final String INNER_TABLE_PREFIX = ".inner";
+    private static final String CURRENT_DATABASE = "currentDatabase()";
+
+    private static final Pattern MATERIALIZED_VIEW_TARGET = Pattern.compile(
+            "^CREATE MATERIALIZED VIEW\\s+(?:`[^`]*`|[^\\s`])+\\s+TO\\s+((?:`[^`]*`|[^\\s`(])+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DISTRIBUTED_ENGINE = Pattern.compile("^Distributed\\((.*)\\)", Pattern.DOTALL);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ClickHouseDatabase database;
+    private final String schema;
+
+    /**
+     * @param jdbcTemplate The JDBC template used when dropping sequentially.
+     * @param database The database-specific support.
+     * @param schema The name of the schema to clean.
+     */
+    public ClickHouseCleaner(JdbcTemplate jdbcTemplate, ClickHouseDatabase database, String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.database = database;
+        this.schema = schema;
+    }
+
+    public void clean() throws SQLException {
+        Map<String, Set<String>> dropGraph = readDropGraph();
+        List<List<String>> waves = ClickHouseDropWaves.compute(dropGraph);
+        LOG.debug("Cleaning " + dropGraph.size() + " objects of " + database.quote(schema) + " in " + waves.size() + " wave(s)");
+
+        try {
+            List<List<List<String>>> batches = waves.stream().map(this::toBatches).collect(Collectors.toList());
+            ClickHouseDropWaves.drop(batches, database.getCleanParallelism(), jdbcTemplate, database::openConnection, this::dropBatch);
+        } catch (SQLException | RuntimeException e) {
+            // Some objects may have been dropped before the failure
+            database.getMetadataSnapshot().invalidate(schema);
+            throw e;
+        }
+
+        // Inner tables of materialized views are dropped along with their view
+        database.getMetadataSnapshot().getTables(schema).stream()
+                .filter(table -> table.startsWith(INNER_TABLE_PREFIX))
+                .forEach(table -> database.getMetadataSnapshot().tableDropped(schema, table));
+    }
+
+    /**
+     * Reads every object of the schema along with the objects which must be dropped before it.
+     */
+    private Map<String, Set<String>> readDropGraph() throws SQLException {
+        List<String[]> rows = database.getSystemConnection().getJdbcTemplate().query(
+                "SELECT name, engine_full, create_table_query, dependency_database, dependency_table FROM system.tables" +
+                        " LEFT ARRAY JOIN dependencies_database AS dependency_database, dependencies_table AS dependency_table" +
+                        " WHERE database = ?",
+                rs -> new String[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)},
+                schema);
+
+        Map<String, Set<String>> dropGraph = new TreeMap<>();
+        for (String[] row : rows) {
+            if (!row[0].startsWith(INNER_TABLE_PREFIX)) {
+                dropGraph.computeIfAbsent(row[0], name -> new TreeSet<>());
+            }
+        }
+
+        for (String[] row : rows) {
+            String name = row[0];
+
+            // Materialized views reading from this table
+            if (StringUtils.hasText(row[4]) && schema.equals(row[3])) {
+                addEdge(dropGraph, name, row[4]);
+            }
+
+            Matcher targetMatcher = MATERIALIZED_VIEW_TARGET.matcher(row[2] == null ? "" : row[2]);
+            if (targetMatcher.find()) {
+                addEdge(dropGraph, ClickHouseDropWaves.localName(targetMatcher.group(1), schema), name);
+            }
+
+            Matcher distributedMatcher = DISTRIBUTED_ENGINE.matcher(row[1] == null ? "" : row[1]);
+            if (distributedMatcher.find()) {
+                String[] args = distributedMatcher.group(1).split(",");
+                if (args.length >= 3) {
+                    String remoteDatabase = unquote(args[1]);
+                    if (CURRENT_DATABASE.equalsIgnoreCase(remoteDatabase) || schema.equals(remoteDatabase)) {
+                        addEdge(dropGraph, unquote(args[2]), name);
+                    }
+                }
+            }
+        }
+        return dropGraph;
+    }
+
+    private static void addEdge(Map<String, Set<String>> dropGraph, String table, String dropFirst) {
+        if (table != null && !table.equals(dropFirst) && dropGraph.containsKey(table) && dropGraph.containsKey(dropFirst)) {
+            dropGraph.get(table).add(dropFirst);
+        }
+    }
+
+    private List<List<String>> toBatches(List<String> wave) {
+        int batchSize = database.getCleanBatchSize();
+        List<List<String>> batches = new ArrayList<>();
+        for (int i = 0; i < wave.size(); i += batchSize) {
+            batches.add(wave.subList(i, Math.min(i + batchSize, wave.size())));
+        }
+        return batches;
+    }
+
+    private void dropBatch(JdbcTemplate jdbcTemplate, List<String> batch) throws SQLException {
+        String tables = batch.stream().map(table -> database.quote(schema, table)).collect(Collectors.joining(", "));
+        jdbcTemplate.execute("DROP TABLE " + tables + database.getOnClusterClause(schema));
+        batch.forEach(table -> database.getMetadataSnapshot().tableDropped(schema, table));
+    }
+
+    private static String unquote(String value) {
+        String trimmed = value.trim();
+        if (trimmed.length() >= 2 && "'`\"".indexOf(trimmed.charAt(0)) >= 0 && trimmed.charAt(trimmed.length() - 1) == trimmed.charAt(0)) {
+            return trimmed.substring(1, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+}
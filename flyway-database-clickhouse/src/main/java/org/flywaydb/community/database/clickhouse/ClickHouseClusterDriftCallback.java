@@ -0,0 +1,80 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.callback.Callback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.util.StringUtils;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Extends {@code validate} with a check that every replica of the configured cluster has the same schema.
+ * <p>
+ * Register it with {@code flyway.callbacks=org.flywaydb.community.database.clickhouse.ClickHouseClusterDriftCallback}.
+ * Validation fails if a replica differs from the majority; without {@code flyway.clickhouse.clusterName} it does
+ * nothing.
+ */
+public class ClickHouseClusterDriftCallback implements Callback {
+    @Override
+    public boolean supports(Event event, Context context) {
+        return event == Event.AFTER_VALIDATE;
+    }
+
+    @Override
+    public boolean canHandleInTransaction(Event event, Context context) {
+        return true;
+    }
+
+    @Override
+    public void handle(Event event, Context context) {
+        Configuration configuration = context.getConfiguration();
+        String clusterName = configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).getClusterName();
+        if (!StringUtils.hasText(clusterName)) {
+            return;
+        }
+
+        List<ClickHouseReplicaDrift> drifts;
+        try {
+            drifts = new ClickHouseClusterDriftCheck(new JdbcTemplate(context.getConnection(), new ClickHouseDatabaseType()), clusterName)
+                    .check(ClickHouseDatabase.getConfiguredSchemas(configuration));
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to compare schemas across cluster " + clusterName, e);
+        }
+
+        if (!drifts.isEmpty()) {
+            throw new FlywayException("Schema drift detected on cluster " + clusterName + ":\n"
+                    + drifts.stream().map(ClickHouseReplicaDrift::toString).collect(Collectors.joining("\n")));
+        }
+    }
+
+    @Override
+    public String getCallbackName() {
+        return "ClickHouse cluster drift check";
+    }
+}
@@ -0,0 +1,130 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Detects replicas which missed some DDL by fingerprinting the tables and columns of each database on every replica
+ * of a cluster with a single {@code clusterAllReplicas} query.
+ */
+@CustomLog
+public class ClickHouseClusterDriftCheck {
+    private final JdbcTemplate jdbcTemplate;
+    private final String clusterName;
+
+    public ClickHouseClusterDriftCheck(JdbcTemplate jdbcTemplate, String clusterName) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterName = clusterName;
+    }
+
+    /**
+     * @param databases The databases to compare.
+     * @return The replicas whose fingerprint of a database differs from the one shared by most replicas.
+     */
+    public List<ClickHouseReplicaDrift> check(Collection<String> databases) throws SQLException {
+        if (databases.isEmpty()) {
+            return List.of();
+        }
+
+        String placeholders = databases.stream().map(d -> "?").collect(Collectors.joining(", "));
+        List<Object> params = new ArrayList<>();
+        params.add(clusterName);
+        params.add(clusterName);
+        params.addAll(databases);
+        params.add(clusterName);
+        params.addAll(databases);
+        params.add(clusterName);
+        params.addAll(databases);
+
+        // Row order does not matter to groupBitXor, so fingerprints are comparable across replicas. The system.one
+        // branch lists every replica, including those on which none of the databases exist. The system.databases
+        // branch gives an existing database without tables a fingerprint, so that it is not taken for a missing one.
+        List<String[]> rows = jdbcTemplate.query(
+                "SELECT host, database, toString(groupBitXor(h)) FROM (" +
+                        " SELECT hostName() AS host, '' AS database, toUInt64(0) AS h FROM clusterAllReplicas(?, system.one)" +
+                        " UNION ALL" +
+                        " SELECT hostName(), name, toUInt64(0) FROM clusterAllReplicas(?, system.databases) WHERE name IN (" + placeholders + ")" +
+                        " UNION ALL" +
+                        " SELECT hostName(), database, cityHash64(name, engine, sorting_key, partition_key, primary_key)" +
+                        " FROM clusterAllReplicas(?, system.tables) WHERE database IN (" + placeholders + ")" +
+                        " UNION ALL" +
+                        " SELECT hostName(), database, cityHash64(table, name, type, position, default_kind, default_expression)" +
+                        " FROM clusterAllReplicas(?, system.columns) WHERE database IN (" + placeholders + ")" +
+                        ") GROUP BY host, database",
+                rs -> new String[]{rs.getString(1), rs.getString(2), rs.getString(3)},
+                params.toArray());
+
+        TreeSet<String> hosts = new TreeSet<>();
+        Map<String, Map<String, String>> fingerprints = new TreeMap<>();
+        for (String[] row : rows) {
+            hosts.add(row[0]);
+            if (!row[1].isEmpty()) {
+                fingerprints.computeIfAbsent(row[1], d -> new TreeMap<>()).put(row[0], row[2]);
+            }
+        }
+
+        List<ClickHouseReplicaDrift> drifts = new ArrayList<>();
+        for (Map.Entry<String, Map<String, String>> database : fingerprints.entrySet()) {
+            String majority = majority(database.getValue().values());
+            for (String host : hosts) {
+                String fingerprint = database.getValue().get(host);
+                if (fingerprint == null || !fingerprint.equals(majority)) {
+                    drifts.add(new ClickHouseReplicaDrift(database.getKey(), host, fingerprint, majority));
+                }
+            }
+        }
+
+        LOG.debug("Compared " + fingerprints.size() + " database(s) across " + hosts.size() + " replica(s) of cluster "
+                + clusterName + ": " + drifts.size() + " drift(s)");
+        return drifts;
+    }
+
+    /**
+     * @return The most common fingerprint, ties being broken by its natural order so that the result is stable.
+     */
+    static String majority(Collection<String> fingerprints) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String fingerprint : fingerprints) {
+            counts.merge(fingerprint, 1, Integer::sum);
+        }
+        String majority = null;
+        int majorityCount = 0;
+        for (Map.Entry<String, Integer> count : new TreeMap<>(counts).entrySet()) {
+            if (count.getValue() > majorityCount) {
+                majority = count.getKey();
+                majorityCount = count.getValue();
+            }
+        }
+        return majority;
+    }
+}
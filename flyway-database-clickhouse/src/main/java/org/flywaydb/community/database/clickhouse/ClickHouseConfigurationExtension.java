@@ -21,19 +21,77 @@
 package org.flywaydb.community.database.clickhouse;
 
 import lombok.Getter;
+import org.flywaydb.core.api.FlywayException;
 import org.flywaydb.core.extensibility.ConfigurationExtension;
 
+import java.util.Arrays;
+import java.util.Locale;
 import java.util.Map;
 
 @Getter
 public class ClickHouseConfigurationExtension implements ConfigurationExtension {
     private static final String CLUSTER_NAME = "flyway.clickhouse.clusterName";
     private static final String ZOOKEEPER_PATH = "flyway.clickhouse.zookeeperPath";
+    private static final String CLEAN_PARALLELISM = "flyway.clickhouse.cleanParallelism";
+    private static final String CLEAN_BATCH_SIZE = "flyway.clickhouse.cleanBatchSize";
+    private static final String CLEAN_DROP_DATABASE = "flyway.clickhouse.cleanDropDatabase";
+    private static final String VERSIONED_SCHEMA_HISTORY = "flyway.clickhouse.versionedSchemaHistory";
+    private static final String DISTRIBUTED_LOCK = "flyway.clickhouse.distributedLock";
+    private static final String LOCK_LEASE_SECONDS = "flyway.clickhouse.lockLeaseSeconds";
+    private static final String LOCK_POLL_INTERVAL_MILLIS = "flyway.clickhouse.lockPollIntervalMillis";
+    private static final String PIPELINE_DISTRIBUTED_DDL = "flyway.clickhouse.pipelineDistributedDdl";
+    private static final String DISTRIBUTED_DDL_TIMEOUT_SECONDS = "flyway.clickhouse.distributedDdlTimeoutSeconds";
+    private static final String INSERT_BATCH_SIZE = "flyway.clickhouse.insertBatchSize";
+    private static final String ASYNC_INSERT = "flyway.clickhouse.asyncInsert";
+    private static final String QUERY_METRICS = "flyway.clickhouse.queryMetrics";
+    private static final String REPLICATED_DATABASE = "flyway.clickhouse.replicatedDatabase";
+    private static final String REPLICATED_DATABASE_PATH = "flyway.clickhouse.replicatedDatabasePath";
+    private static final String MUTATION_BARRIER = "flyway.clickhouse.mutationBarrier";
+    private static final String MUTATION_TIMEOUT_SECONDS = "flyway.clickhouse.mutationTimeoutSeconds";
 
     private static final String ZOOKEEPER_PATH_DEFAULT_VALUE = "/clickhouse/tables/{shard}/{database}/{table}";
+    private static final String REPLICATED_DATABASE_PATH_DEFAULT_VALUE = "/clickhouse/databases/{database}";
+    private static final int CLEAN_PARALLELISM_DEFAULT_VALUE = 1;
+    private static final int CLEAN_BATCH_SIZE_DEFAULT_VALUE = 1;
+    private static final int LOCK_LEASE_SECONDS_DEFAULT_VALUE = 60;
+    private static final int LOCK_POLL_INTERVAL_MILLIS_DEFAULT_VALUE = 1000;
+    private static final int DISTRIBUTED_DDL_TIMEOUT_SECONDS_DEFAULT_VALUE = 300;
+    private static final int INSERT_BATCH_SIZE_DEFAULT_VALUE = 1;
+    private static final int MUTATION_TIMEOUT_SECONDS_DEFAULT_VALUE = 3600;
 
     private String clusterName;
     private String zookeeperPath = ZOOKEEPER_PATH_DEFAULT_VALUE;
+    private int cleanParallelism = CLEAN_PARALLELISM_DEFAULT_VALUE;
+    private int cleanBatchSize = CLEAN_BATCH_SIZE_DEFAULT_VALUE;
+    private boolean cleanDropDatabase;
+    private boolean versionedSchemaHistory;
+    private boolean distributedLock;
+    private int lockLeaseSeconds = LOCK_LEASE_SECONDS_DEFAULT_VALUE;
+    private int lockPollIntervalMillis = LOCK_POLL_INTERVAL_MILLIS_DEFAULT_VALUE;
+    private boolean pipelineDistributedDdl;
+    private int distributedDdlTimeoutSeconds = DISTRIBUTED_DDL_TIMEOUT_SECONDS_DEFAULT_VALUE;
+    private int insertBatchSize = INSERT_BATCH_SIZE_DEFAULT_VALUE;
+    private boolean asyncInsert;
+    private boolean queryMetrics;
+    private boolean replicatedDatabase;
+    private String replicatedDatabasePath = REPLICATED_DATABASE_PATH_DEFAULT_VALUE;
+    private MutationBarrier mutationBarrier = MutationBarrier.NONE;
+    private int mutationTimeoutSeconds = MUTATION_TIMEOUT_SECONDS_DEFAULT_VALUE;
+
+    /**
+     * When to wait for mutations which have been submitted asynchronously.
+     */
+    public enum MutationBarrier {
+        /**
+         * Submit mutations with {@code mutations_sync = 0} unless a statement sets it, and wait for them before
+         * statements which reference a mutated table, and at the end of every migration.
+         */
+        SCRIPT,
+        /**
+         * Never; mutations are left to the server, as configured by its {@code mutations_sync} setting. The default.
+         */
+        NONE
+    }
 
     @Override
     public String getNamespace() {
@@ -51,6 +109,91 @@ public class ClickHouseConfigurationExtension implements ConfigurationExtension
         if (zookeeperPath != null) {
             this.zookeeperPath = zookeeperPath;
         }
+
+        String cleanParallelism = configuration.remove(CLEAN_PARALLELISM);
+        if (cleanParallelism != null) {
+            this.cleanParallelism = parsePositiveInt(CLEAN_PARALLELISM, cleanParallelism);
+        }
+
+        String cleanBatchSize = configuration.remove(CLEAN_BATCH_SIZE);
+        if (cleanBatchSize != null) {
+            this.cleanBatchSize = parsePositiveInt(CLEAN_BATCH_SIZE, cleanBatchSize);
+        }
+
+        String cleanDropDatabase = configuration.remove(CLEAN_DROP_DATABASE);
+        if (cleanDropDatabase != null) {
+            this.cleanDropDatabase = Boolean.parseBoolean(cleanDropDatabase);
+        }
+
+        String versionedSchemaHistory = configuration.remove(VERSIONED_SCHEMA_HISTORY);
+        if (versionedSchemaHistory != null) {
+            this.versionedSchemaHistory = Boolean.parseBoolean(versionedSchemaHistory);
+        }
+
+        String distributedLock = configuration.remove(DISTRIBUTED_LOCK);
+        if (distributedLock != null) {
+            this.distributedLock = Boolean.parseBoolean(distributedLock);
+        }
+
+        String lockLeaseSeconds = configuration.remove(LOCK_LEASE_SECONDS);
+        if (lockLeaseSeconds != null) {
+            this.lockLeaseSeconds = parsePositiveInt(LOCK_LEASE_SECONDS, lockLeaseSeconds);
+        }
+
+        String lockPollIntervalMillis = configuration.remove(LOCK_POLL_INTERVAL_MILLIS);
+        if (lockPollIntervalMillis != null) {
+            this.lockPollIntervalMillis = parsePositiveInt(LOCK_POLL_INTERVAL_MILLIS, lockPollIntervalMillis);
+        }
+
+        String pipelineDistributedDdl = configuration.remove(PIPELINE_DISTRIBUTED_DDL);
+        if (pipelineDistributedDdl != null) {
+            this.pipelineDistributedDdl = Boolean.parseBoolean(pipelineDistributedDdl);
+        }
+
+        String distributedDdlTimeoutSeconds = configuration.remove(DISTRIBUTED_DDL_TIMEOUT_SECONDS);
+        if (distributedDdlTimeoutSeconds != null) {
+            this.distributedDdlTimeoutSeconds = parsePositiveInt(DISTRIBUTED_DDL_TIMEOUT_SECONDS, distributedDdlTimeoutSeconds);
+        }
+
+        String insertBatchSize = configuration.remove(INSERT_BATCH_SIZE);
+        if (insertBatchSize != null) {
+            this.insertBatchSize = parsePositiveInt(INSERT_BATCH_SIZE, insertBatchSize);
+        }
+
+        String asyncInsert = configuration.remove(ASYNC_INSERT);
+        if (asyncInsert != null) {
+            this.asyncInsert = Boolean.parseBoolean(asyncInsert);
+        }
+
+        String queryMetrics = configuration.remove(QUERY_METRICS);
+        if (queryMetrics != null) {
+            this.queryMetrics = Boolean.parseBoolean(queryMetrics);
+        }
+
+        String replicatedDatabase = configuration.remove(REPLICATED_DATABASE);
+        if (replicatedDatabase != null) {
+            this.replicatedDatabase = Boolean.parseBoolean(replicatedDatabase);
+        }
+
+        String replicatedDatabasePath = configuration.remove(REPLICATED_DATABASE_PATH);
+        if (replicatedDatabasePath != null) {
+            this.replicatedDatabasePath = replicatedDatabasePath;
+        }
+
+        String mutationBarrier = configuration.remove(MUTATION_BARRIER);
+        if (mutationBarrier != null) {
+            try {
+                this.mutationBarrier = MutationBarrier.valueOf(mutationBarrier.trim().toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                throw new FlywayException("Invalid value for " + MUTATION_BARRIER + ": " + mutationBarrier
+                        + " (must be one of " + Arrays.toString(MutationBarrier.values()) + ")");
+            }
+        }
+
+        String mutationTimeoutSeconds = configuration.remove(MUTATION_TIMEOUT_SECONDS);
+        if (mutationTimeoutSeconds != null) {
+            this.mutationTimeoutSeconds = parsePositiveInt(MUTATION_TIMEOUT_SECONDS, mutationTimeoutSeconds);
+        }
     }
 
     @Override
@@ -61,6 +204,66 @@ public class ClickHouseConfigurationExtension implements ConfigurationExtension
         if ("FLYWAY_CLICKHOUSE_ZOOKEEPER_PATH".equals(environmentVariable)) {
             return ZOOKEEPER_PATH;
         }
+        if ("FLYWAY_CLICKHOUSE_CLEAN_PARALLELISM".equals(environmentVariable)) {
+            return CLEAN_PARALLELISM;
+        }
+        if ("FLYWAY_CLICKHOUSE_CLEAN_BATCH_SIZE".equals(environmentVariable)) {
+            return CLEAN_BATCH_SIZE;
+        }
+        if ("FLYWAY_CLICKHOUSE_CLEAN_DROP_DATABASE".equals(environmentVariable)) {
+            return CLEAN_DROP_DATABASE;
+        }
+        if ("FLYWAY_CLICKHOUSE_VERSIONED_SCHEMA_HISTORY".equals(environmentVariable)) {
+            return VERSIONED_SCHEMA_HISTORY;
+        }
+        if ("FLYWAY_CLICKHOUSE_DISTRIBUTED_LOCK".equals(environmentVariable)) {
+            return DISTRIBUTED_LOCK;
+        }
+        if ("FLYWAY_CLICKHOUSE_LOCK_LEASE_SECONDS".equals(environmentVariable)) {
+            return LOCK_LEASE_SECONDS;
+        }
+        if ("FLYWAY_CLICKHOUSE_LOCK_POLL_INTERVAL_MILLIS".equals(environmentVariable)) {
+            return LOCK_POLL_INTERVAL_MILLIS;
+        }
+        if ("FLYWAY_CLICKHOUSE_PIPELINE_DISTRIBUTED_DDL".equals(environmentVariable)) {
+            return PIPELINE_DISTRIBUTED_DDL;
+        }
+        if ("FLYWAY_CLICKHOUSE_DISTRIBUTED_DDL_TIMEOUT_SECONDS".equals(environmentVariable)) {
+            return DISTRIBUTED_DDL_TIMEOUT_SECONDS;
+        }
+        if ("FLYWAY_CLICKHOUSE_INSERT_BATCH_SIZE".equals(environmentVariable)) {
+            return INSERT_BATCH_SIZE;
+        }
+        if ("FLYWAY_CLICKHOUSE_ASYNC_INSERT".equals(environmentVariable)) {
+            return ASYNC_INSERT;
+        }
+        if ("FLYWAY_CLICKHOUSE_QUERY_METRICS".equals(environmentVariable)) {
+            return QUERY_METRICS;
+        }
+        if ("FLYWAY_CLICKHOUSE_REPLICATED_DATABASE".equals(environmentVariable)) {
+            return REPLICATED_DATABASE;
+        }
+        if ("FLYWAY_CLICKHOUSE_REPLICATED_DATABASE_PATH".equals(environmentVariable)) {
+            return REPLICATED_DATABASE_PATH;
+        }
+        if ("FLYWAY_CLICKHOUSE_MUTATION_BARRIER".equals(environmentVariable)) {
+            return MUTATION_BARRIER;
+        }
+        if ("FLYWAY_CLICKHOUSE_MUTATION_TIMEOUT_SECONDS".equals(environmentVariable)) {
+            return MUTATION_TIMEOUT_SECONDS;
+        }
         return null;
     }
+
+    private static int parsePositiveInt(String key, String value) {
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new FlywayException("Invalid value for " + key + ": " + value + " (must be a positive integer)");
+    }
 }
@@ -26,15 +26,39 @@ import org.flywaydb.core.internal.database.base.Table;
 import org.flywaydb.core.internal.exception.FlywaySqlException;
 import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
 import org.flywaydb.core.internal.jdbc.StatementInterceptor;
+import org.flywaydb.core.internal.util.Pair;
 import org.flywaydb.core.internal.util.StringUtils;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public class ClickHouseDatabase extends Database<ClickHouseConnection> {
 
+    private static final String ROW_VERSION_COLUMN = "row_version";
+    private static final String IS_DELETED_COLUMN = "is_deleted";
+    private static final String NEXT_ROW_VERSION = "toUnixTimestamp64Nano(now64(9))";
+    private static final String[] HISTORY_COLUMNS = {
+            "installed_rank", "version", "description", "type", "script", "checksum", "installed_on", "installed_by", "execution_time", "success"};
+
+    private static final ThreadLocal<Connection> SHARED_SYSTEM_CONNECTION = new ThreadLocal<>();
+
     private ClickHouseConnection systemConnection;
 
+    /**
+     * Whether the system connection is shared with other databases, and owned by whoever shared it.
+     */
+    private boolean systemConnectionShared;
+
+    private ClickHouseMetadataSnapshot metadataSnapshot;
+
+    private Boolean versionedSchemaHistory;
+
     @Override
     public boolean useSingleConnection() {
         return true;
@@ -52,6 +76,63 @@ public class ClickHouseDatabase extends Database<ClickHouseConnection> {
         return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).getZookeeperPath();
     }
 
+    public int getCleanParallelism() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).getCleanParallelism();
+    }
+
+    public int getCleanBatchSize() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).getCleanBatchSize();
+    }
+
+    public boolean isCleanDropDatabase() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).isCleanDropDatabase();
+    }
+
+    public boolean isDistributedLock() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).isDistributedLock();
+    }
+
+    public int getLockLeaseSeconds() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).getLockLeaseSeconds();
+    }
+
+    public int getLockPollIntervalMillis() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).getLockPollIntervalMillis();
+    }
+
+    public boolean isReplicatedDatabaseConfigured() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).isReplicatedDatabase();
+    }
+
+    public String getReplicatedDatabasePath() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).getReplicatedDatabasePath();
+    }
+
+    /**
+     * Whether DDL in the given schema is replicated by a {@code Replicated} database engine rather than by
+     * {@code ON CLUSTER}. The engine of an existing database wins over the configuration.
+     */
+    public boolean isReplicatedDatabase(String schema) {
+        try {
+            String engine = getMetadataSnapshot().getDatabaseEngine(schema);
+            return engine == null ? isReplicatedDatabaseConfigured() : "Replicated".equals(engine);
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to determine the engine of database " + schema, e);
+        }
+    }
+
+    /**
+     * @return The {@code ON CLUSTER} clause for DDL on the objects of the given schema, empty if no cluster is
+     * configured or the schema is a {@code Replicated} database, which does not accept it.
+     */
+    public String getOnClusterClause(String schema) {
+        String clusterName = getClusterName();
+        if (!StringUtils.hasText(clusterName) || isReplicatedDatabase(schema)) {
+            return "";
+        }
+        return " ON CLUSTER " + clusterName;
+    }
+
     public ClickHouseConnection getSystemConnection() {
         // Queries on system.XX fail with "Code: 81. DB::Exception: Database the_database doesn't exist. (UNKNOWN_DATABASE) (version 23.7.1.2470 (official build))"
         // in case the current catalog (database) is not yet created.
@@ -59,6 +140,11 @@ public class ClickHouseDatabase extends Database<ClickHouseConnection> {
         //  * mainConnection cannot be used, as this would change the location of the schema history table.
         //  * jdbcTemplate cannot be used, as this would change the location of the new tables.
         // We had to introduce a separate connection, reserved to system database access.
+        if (systemConnection == null && SHARED_SYSTEM_CONNECTION.get() != null) {
+            // Already switched to the system database by whoever shared it
+            systemConnection = doGetConnection(SHARED_SYSTEM_CONNECTION.get());
+            systemConnectionShared = true;
+        }
         if (systemConnection == null) {
             Connection connection = jdbcConnectionFactory.openConnection();
             try {
@@ -71,6 +157,65 @@ public class ClickHouseDatabase extends Database<ClickHouseConnection> {
         return systemConnection;
     }
 
+    /**
+     * Shares the given connection, switched to the {@code system} database, with every {@link ClickHouseDatabase}
+     * created on the current thread until {@link #unshareSystemConnection()} is called. The databases use it as their
+     * system connection instead of opening their own, and leave it open.
+     */
+    static void shareSystemConnection(Connection connection) {
+        SHARED_SYSTEM_CONNECTION.set(connection);
+    }
+
+    static void unshareSystemConnection() {
+        SHARED_SYSTEM_CONNECTION.remove();
+    }
+
+    public ClickHouseMetadataSnapshot getMetadataSnapshot() {
+        if (metadataSnapshot == null) {
+            metadataSnapshot = ClickHouseMetadataSnapshot.getShared();
+        }
+        if (metadataSnapshot == null) {
+            metadataSnapshot = new ClickHouseMetadataSnapshot(() -> getSystemConnection().getJdbcTemplate(), getConfiguredSchemas(configuration));
+        }
+        return metadataSnapshot;
+    }
+
+    /**
+     * Compares the schemas Flyway manages across all replicas of the configured cluster.
+     *
+     * @return The replicas whose schemas differ from the majority, empty if they all agree or no cluster is configured.
+     */
+    public List<ClickHouseReplicaDrift> checkClusterDrift() {
+        String clusterName = getClusterName();
+        if (!StringUtils.hasText(clusterName)) {
+            return List.of();
+        }
+        try {
+            return new ClickHouseClusterDriftCheck(getSystemConnection().getJdbcTemplate(), clusterName)
+                    .check(getConfiguredSchemas(configuration));
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to compare schemas across cluster " + clusterName, e);
+        }
+    }
+
+    static Set<String> getConfiguredSchemas(Configuration configuration) {
+        Set<String> schemas = new LinkedHashSet<>();
+        if (configuration.getDefaultSchema() != null) {
+            schemas.add(configuration.getDefaultSchema());
+        }
+        Arrays.stream(configuration.getSchemas())
+                .filter(Objects::nonNull)
+                .forEach(schemas::add);
+        return schemas;
+    }
+
+    /**
+     * Opens an additional connection to the database. The caller is responsible for closing it.
+     */
+    ClickHouseConnection openConnection() {
+        return doGetConnection(jdbcConnectionFactory.openConnection());
+    }
+
     @Override
     protected ClickHouseConnection doGetConnection(Connection connection) {
         return new ClickHouseConnection(this, connection);
@@ -107,7 +252,7 @@ public class ClickHouseDatabase extends Database<ClickHouseConnection> {
 
     @Override
     public void close() {
-        if (systemConnection != null) {
+        if (systemConnection != null && !systemConnectionShared) {
             systemConnection.close();
         }
 
@@ -116,10 +261,14 @@ public class ClickHouseDatabase extends Database<ClickHouseConnection> {
 
     @Override
     public String getRawCreateScript(Table table, boolean baseline) {
-        String clusterName = getClusterName();
-        boolean isClustered = StringUtils.hasText(clusterName);
+        String schema = table.getSchema().getName();
+        boolean isReplicatedDatabase = isReplicatedDatabase(schema);
+        String onCluster = getOnClusterClause(schema);
+        boolean isClustered = StringUtils.hasText(getClusterName());
+
+        versionedSchemaHistory = isVersionedSchemaHistoryConfigured();
 
-        String script = "CREATE TABLE IF NOT EXISTS " + table + (isClustered ? (" ON CLUSTER " + clusterName) : "") + "(" +
+        String script = "CREATE TABLE IF NOT EXISTS " + table + onCluster + "(" +
                 "    installed_rank Int32," +
                 "    version Nullable(String)," +
                 "    description String," +
@@ -130,19 +279,107 @@ public class ClickHouseDatabase extends Database<ClickHouseConnection> {
                 "    installed_on DateTime DEFAULT now()," +
                 "    execution_time Int32," +
                 "    success Bool" +
+                (versionedSchemaHistory ? "," +
+                        "    " + ROW_VERSION_COLUMN + " UInt64 DEFAULT " + NEXT_ROW_VERSION + "," +
+                        "    " + IS_DELETED_COLUMN + " UInt8 DEFAULT 0" : "") +
                 ")";
 
         String engine;
+        String sortingKey;
 
-        if (isClustered) {
-            engine = "ReplicatedMergeTree('" + getZookeeperPath() + "', '{replica}')";
+        // Replicated databases fill in the replication path and replica name of their tables themselves
+        if (versionedSchemaHistory) {
+            String versionColumns = ROW_VERSION_COLUMN + ", " + IS_DELETED_COLUMN;
+            if (isReplicatedDatabase) {
+                engine = "ReplicatedReplacingMergeTree(" + versionColumns + ")";
+            } else if (isClustered) {
+                engine = "ReplicatedReplacingMergeTree('" + getZookeeperPath() + "', '{replica}', " + versionColumns + ")";
+            } else {
+                engine = "ReplacingMergeTree(" + versionColumns + ")";
+            }
+            sortingKey = " ORDER BY (installed_rank)";
         } else {
-            engine = "MergeTree";
+            if (isReplicatedDatabase) {
+                engine = "ReplicatedMergeTree";
+            } else if (isClustered) {
+                engine = "ReplicatedMergeTree('" + getZookeeperPath() + "', '{replica}')";
+            } else {
+                engine = "MergeTree";
+            }
+            sortingKey = " PRIMARY KEY (script)";
         }
 
         script += " ENGINE = " + engine +
-                " PRIMARY KEY (script);";
+                sortingKey + ";";
 
         return script + (baseline ? getBaselineStatement(table) + ";" : "");
     }
+
+    @Override
+    public String getSelectStatement(Table table) {
+        if (!isVersionedSchemaHistory(table)) {
+            return super.getSelectStatement(table);
+        }
+        // FINAL collapses the row versions written by updates and deletes, the sorting key keeps the range scan cheap
+        return "SELECT " + getHistoryColumns() +
+                " FROM " + table + " FINAL" +
+                " WHERE " + quote("installed_rank") + " > ? AND " + quote(IS_DELETED_COLUMN) + " = 0" +
+                " ORDER BY " + quote("installed_rank");
+    }
+
+    @Override
+    public String getUpdateStatement(Table table) {
+        if (!isVersionedSchemaHistory(table)) {
+            return super.getUpdateStatement(table);
+        }
+        // Write a new version of the row instead of mutating it
+        return "INSERT INTO " + table + " (" + getHistoryColumns() + ", " + quote(ROW_VERSION_COLUMN) + ", " + quote(IS_DELETED_COLUMN) + ")" +
+                " SELECT " + quote("installed_rank") + ", " + quote("version") + ", ?, ?, " + quote("script") + ", ?, " +
+                quote("installed_on") + ", " + quote("installed_by") + ", " + quote("execution_time") + ", " + quote("success") + ", " +
+                NEXT_ROW_VERSION + ", 0" +
+                " FROM " + table + " FINAL" +
+                " WHERE " + quote("installed_rank") + " = ? AND " + quote(IS_DELETED_COLUMN) + " = 0";
+    }
+
+    @Override
+    public Pair<String, Object> getDeleteStatement(Table table, boolean version, String filter) {
+        if (!isVersionedSchemaHistory(table)) {
+            return super.getDeleteStatement(table, version, filter);
+        }
+        // Write a tombstone version of the row instead of mutating it
+        String deleteStatement = "INSERT INTO " + table + " (" + getHistoryColumns() + ", " + quote(ROW_VERSION_COLUMN) + ", " + quote(IS_DELETED_COLUMN) + ")" +
+                " SELECT " + getHistoryColumns() + ", " + NEXT_ROW_VERSION + ", 1" +
+                " FROM " + table + " FINAL" +
+                " WHERE " + quote("success") + " = " + getBooleanFalse() +
+                " AND " + (version ? quote("version") : quote("description")) + " = ?" +
+                " AND " + quote(IS_DELETED_COLUMN) + " = 0";
+        return Pair.of(deleteStatement, filter);
+    }
+
+    private String getHistoryColumns() {
+        return Arrays.stream(HISTORY_COLUMNS).map(this::quote).collect(Collectors.joining(", "));
+    }
+
+    private boolean isVersionedSchemaHistoryConfigured() {
+        return configuration.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class).isVersionedSchemaHistory();
+    }
+
+    /**
+     * The layout of an existing schema history table wins over the configuration, so that toggling
+     * {@code versionedSchemaHistory} never breaks a table created with the other layout.
+     */
+    private boolean isVersionedSchemaHistory(Table table) {
+        if (versionedSchemaHistory == null) {
+            try {
+                String engine = getMetadataSnapshot().getEngine(table.getSchema().getName(), table.getName());
+                if (engine == null) {
+                    return isVersionedSchemaHistoryConfigured();
+                }
+                versionedSchemaHistory = engine.endsWith("ReplacingMergeTree");
+            } catch (SQLException e) {
+                throw new FlywaySqlException("Unable to determine the engine of " + table, e);
+            }
+        }
+        return versionedSchemaHistory;
+    }
 }
@@ -0,0 +1,237 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks {@code ON CLUSTER} DDL statements which have been submitted without waiting for the replicas
+ * ({@code distributed_ddl_task_timeout = 0}, with {@code distributed_ddl_output_mode = 'none'} so that the submission
+ * returns no result set), and waits for them in {@code system.distributed_ddl_queue} only when
+ * required: before a statement which references an object touched by a pending DDL, and at the end of a migration.
+ * <p>
+ * Distributed DDL entries are executed by each host in queue order, so consecutive {@code ON CLUSTER} statements never
+ * need to wait for each other.
+ */
+@CustomLog
+public class ClickHouseDistributedDdlTracker {
+    private static final String OUTPUT_MODE_SETTING = "distributed_ddl_output_mode";
+    private static final String TASK_TIMEOUT_SETTING = "distributed_ddl_task_timeout";
+    private static final long POLL_INTERVAL_MILLIS = 500;
+
+    private static final Pattern ON_CLUSTER = Pattern.compile("\\bON\\s+CLUSTER\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern DDL_TARGET = Pattern.compile(
+            "^\\s*(?:CREATE|ATTACH|ALTER|DROP|DETACH|RENAME|TRUNCATE|EXCHANGE|OPTIMIZE)\\s+(?:OR\\s+REPLACE\\s+)?"
+                    + "(?:TEMPORARY\\s+)?(?:TABLE|TABLES|VIEW|MATERIALIZED\\s+VIEW|LIVE\\s+VIEW|WINDOW\\s+VIEW|DICTIONARY|DATABASE|FUNCTION)?\\s*"
+                    + "(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?((?:`[^`]+`|\"[^\"]+\"|[\\w.])+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String clusterName;
+    private final long timeoutMillis;
+
+    /**
+     * The objects touched by pending DDL, with the pattern finding references to them.
+     */
+    private final Map<String, Pattern> pendingObjects = new HashMap<>();
+    private int pendingStatements;
+    private long submittedSince = -1;
+    private String originalOutputMode;
+    private String originalTaskTimeout;
+
+    /**
+     * @param jdbcTemplate The template of the connection the migration runs on.
+     * @param clusterName The cluster the DDL statements are distributed to.
+     * @param timeoutSeconds How long to wait for the replicas at a barrier before failing.
+     */
+    public ClickHouseDistributedDdlTracker(JdbcTemplate jdbcTemplate, String clusterName, int timeoutSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterName = clusterName;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    /**
+     * Prepares the connection for the given statement, waiting for pending DDL first if the statement depends on it.
+     */
+    public void beforeStatement(String sql) throws SQLException {
+        boolean distributed = isDistributedDdl(sql);
+        if (!distributed && referencesPendingObject(sql)) {
+            await();
+        }
+        if (!distributed) {
+            return;
+        }
+
+        if (originalOutputMode == null) {
+            Map<String, String> settings = jdbcTemplate.queryForList("SELECT getSetting('" + OUTPUT_MODE_SETTING + "') AS output_mode,"
+                    + " getSetting('" + TASK_TIMEOUT_SETTING + "') AS task_timeout").get(0);
+            jdbcTemplate.execute("SET " + OUTPUT_MODE_SETTING + " = 'none', " + TASK_TIMEOUT_SETTING + " = 0");
+            originalOutputMode = settings.get("output_mode");
+            originalTaskTimeout = settings.get("task_timeout");
+        }
+        if (submittedSince < 0) {
+            submittedSince = jdbcTemplate.queryForLong("SELECT toUnixTimestamp(now())");
+        }
+    }
+
+    /**
+     * Records a statement which has been submitted successfully.
+     */
+    public void afterStatement(String sql) {
+        if (!isDistributedDdl(sql)) {
+            return;
+        }
+        pendingStatements++;
+        Matcher matcher = DDL_TARGET.matcher(ClickHouseParser.stripLeadingComments(sql));
+        if (matcher.find()) {
+            pendingObjects.computeIfAbsent(unqualified(matcher.group(1)),
+                    object -> Pattern.compile("\\b" + Pattern.quote(object) + "\\b", Pattern.CASE_INSENSITIVE));
+        }
+    }
+
+    /**
+     * Waits until every host has finished all the DDL submitted since the last barrier.
+     *
+     * @throws FlywayException if a host reported a failure or the replicas did not finish in time.
+     */
+    public void await() throws SQLException {
+        if (pendingStatements == 0) {
+            return;
+        }
+
+        LOG.debug("Waiting for " + pendingStatements + " distributed DDL statement(s) on cluster " + clusterName);
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        String lastProgress = null;
+        while (true) {
+            List<Map<String, String>> tasks = jdbcTemplate.queryForList(
+                    "SELECT entry, host, port, status, exception_code, exception_text FROM system.distributed_ddl_queue"
+                            + " WHERE cluster = ? AND query_create_time >= toDateTime(" + submittedSince + ") ORDER BY entry, host, port",
+                    clusterName);
+
+            Map<String, int[]> progress = new TreeMap<>();
+            StringBuilder failures = new StringBuilder();
+            // Every submitted statement must have reached the queue before its absence of unfinished tasks means anything
+            Set<String> entries = new HashSet<>();
+            boolean finished = true;
+            for (Map<String, String> task : tasks) {
+                entries.add(task.get("entry"));
+                String host = task.get("host") + ":" + task.get("port");
+                int[] counts = progress.computeIfAbsent(host, h -> new int[2]);
+                counts[1]++;
+                String exceptionCode = task.get("exception_code");
+                if (exceptionCode != null && !"0".equals(exceptionCode)) {
+                    failures.append("\n").append(host).append(" (").append(task.get("entry")).append("): ")
+                            .append(task.get("exception_text"));
+                } else if ("Finished".equals(task.get("status"))) {
+                    counts[0]++;
+                } else {
+                    finished = false;
+                }
+            }
+
+            if (failures.length() > 0) {
+                throw new FlywayException("Distributed DDL failed on cluster " + clusterName + ":" + failures);
+            }
+            if (finished && entries.size() >= pendingStatements) {
+                break;
+            }
+
+            String currentProgress = formatProgress(progress);
+            if (!currentProgress.equals(lastProgress)) {
+                LOG.info("Waiting for distributed DDL on cluster " + clusterName + ": " + currentProgress);
+                lastProgress = currentProgress;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new FlywayException("Timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)
+                        + "s waiting for distributed DDL on cluster " + clusterName + ": " + currentProgress);
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FlywayException("Interrupted while waiting for distributed DDL on cluster " + clusterName, e);
+            }
+        }
+
+        pendingObjects.clear();
+        pendingStatements = 0;
+        submittedSince = -1;
+    }
+
+    /**
+     * Restores the original {@code distributed_ddl_output_mode} and {@code distributed_ddl_task_timeout} of the
+     * connection.
+     */
+    public void restore() throws SQLException {
+        if (originalOutputMode != null) {
+            jdbcTemplate.execute("SET " + OUTPUT_MODE_SETTING + " = '" + originalOutputMode + "', "
+                    + TASK_TIMEOUT_SETTING + " = " + originalTaskTimeout);
+            originalOutputMode = null;
+            originalTaskTimeout = null;
+        }
+    }
+
+    private static boolean isDistributedDdl(String sql) {
+        return ON_CLUSTER.matcher(ClickHouseParser.stripLeadingComments(sql)).find();
+    }
+
+    private boolean referencesPendingObject(String sql) {
+        String statement = ClickHouseParser.stripLeadingComments(sql);
+        for (Pattern object : pendingObjects.values()) {
+            if (object.matcher(statement).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String unqualified(String name) {
+        String[] parts = name.split("\\.");
+        return parts[parts.length - 1].replace("`", "").replace("\"", "");
+    }
+
+    private static String formatProgress(Map<String, int[]> progress) {
+        if (progress.isEmpty()) {
+            return "no tasks visible yet";
+        }
+        StringBuilder result = new StringBuilder();
+        for (Map.Entry<String, int[]> host : progress.entrySet()) {
+            if (result.length() > 0) {
+                result.append(", ");
+            }
+            result.append(host.getKey()).append(" ").append(host.getValue()[0]).append("/").append(host.getValue()[1]);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,180 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.internal.database.base.Connection;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Drops the objects of a schema in waves, where every object of a wave only has dependents in earlier waves.
+ * <p>
+ * Shared by the cleaners of ClickHouse and of the databases derived from it, which only differ in how they build the
+ * drop graph and in the statement they drop an object with.
+ */
+@CustomLog
+public final class ClickHouseDropWaves {
+    private ClickHouseDropWaves() {
+    }
+
+    /**
+     * Drops a single object or batch of objects.
+     */
+    public interface Drop<T> {
+        void drop(JdbcTemplate jdbcTemplate, T item) throws SQLException;
+    }
+
+    /**
+     * Splits the drop graph into waves. Every object only depends on objects of earlier waves being dropped first.
+     *
+     * @param dropGraph Every object mapped to the objects which must be dropped before it.
+     */
+    public static List<List<String>> compute(Map<String, Set<String>> dropGraph) {
+        List<List<String>> waves = new ArrayList<>();
+        Map<String, Set<String>> remaining = new TreeMap<>(dropGraph);
+        while (!remaining.isEmpty()) {
+            List<String> wave = remaining.entrySet().stream()
+                    .filter(entry -> entry.getValue().stream().noneMatch(remaining::containsKey))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            if (wave.isEmpty()) {
+                LOG.warn("Circular dependency detected between " + remaining.keySet() + ". Dropping them in alphabetical order.");
+                wave = new ArrayList<>(remaining.keySet());
+            }
+            wave.forEach(remaining::remove);
+            waves.add(wave);
+        }
+        return waves;
+    }
+
+    /**
+     * Drops the waves one after the other. The items of a wave are dropped concurrently on up to {@code parallelism}
+     * connections of their own, or sequentially on {@code jdbcTemplate} when the parallelism is 1.
+     */
+    public static <T> void drop(List<List<T>> waves, int parallelism, JdbcTemplate jdbcTemplate,
+                                Supplier<? extends Connection<?>> openConnection, Drop<T> drop) throws SQLException {
+        int maxWave = waves.stream().mapToInt(List::size).max().orElse(0);
+        int threads = Math.min(parallelism, maxWave);
+        if (threads <= 1) {
+            for (List<T> wave : waves) {
+                for (T item : wave) {
+                    drop.drop(jdbcTemplate, item);
+                }
+            }
+            return;
+        }
+
+        BlockingQueue<Connection<?>> connections = new LinkedBlockingQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int i = 0; i < threads; i++) {
+                connections.add(openConnection.get());
+            }
+
+            for (List<T> wave : waves) {
+                List<Future<Void>> futures = new ArrayList<>();
+                for (T item : wave) {
+                    futures.add(executor.submit(() -> {
+                        Connection<?> connection = connections.take();
+                        try {
+                            drop.drop(connection.getJdbcTemplate(), item);
+                        } finally {
+                            connections.add(connection);
+                        }
+                        return null;
+                    }));
+                }
+                waitFor(futures);
+            }
+        } finally {
+            executor.shutdownNow();
+            connections.forEach(Connection::close);
+        }
+    }
+
+    private static void waitFor(List<Future<Void>> futures) throws SQLException {
+        Throwable failure = null;
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FlywayException("Interrupted while cleaning", e);
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+        }
+        if (failure instanceof SQLException) {
+            throw (SQLException) failure;
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure != null) {
+            throw new FlywayException(failure);
+        }
+    }
+
+    /**
+     * @param reference A possibly qualified and backtick-quoted object name.
+     * @param schema    The schema being cleaned.
+     * @return The name of the referenced object if it lives in {@code schema}, {@code null} otherwise.
+     */
+    public static String localName(String reference, String schema) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder part = new StringBuilder();
+        boolean quoted = false;
+        for (char c : reference.toCharArray()) {
+            if (c == '`') {
+                quoted = !quoted;
+            } else if (c == '.' && !quoted) {
+                parts.add(part.toString());
+                part.setLength(0);
+            } else {
+                part.append(c);
+            }
+        }
+        parts.add(part.toString());
+
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        return parts.size() == 2 && schema.equals(parts.get(0)) ? parts.get(1) : null;
+    }
+}
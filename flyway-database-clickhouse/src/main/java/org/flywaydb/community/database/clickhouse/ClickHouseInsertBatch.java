@@ -0,0 +1,111 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A run of consecutive {@code INSERT ... VALUES} statements into the same table and columns, which is sent to the
+ * server as a single {@code INSERT} so that it is written as one part in one round trip.
+ */
+public class ClickHouseInsertBatch {
+    private static final Pattern INSERT_VALUES = Pattern.compile(
+            "^\\s*INSERT\\s+INTO\\s+(?:TABLE\\s+)?((?:`[^`]+`|\"[^\"]+\"|[\\w.])+)\\s*(\\([^)]*\\))?\\s*VALUES\\s*(\\(.*\\))\\s*$",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    private final String target;
+    private final List<SqlStatement> statements = new ArrayList<>();
+    private final StringBuilder values = new StringBuilder();
+
+    private ClickHouseInsertBatch(String target) {
+        this.target = target;
+    }
+
+    /**
+     * Starts a new batch with the given statement.
+     *
+     * @return The batch, or {@code null} if the statement is not a plain {@code INSERT ... VALUES}.
+     */
+    public static ClickHouseInsertBatch start(SqlStatement statement) {
+        Matcher matcher = INSERT_VALUES.matcher(ClickHouseParser.stripLeadingComments(statement.getSql()));
+        if (!matcher.matches()) {
+            return null;
+        }
+        ClickHouseInsertBatch batch = new ClickHouseInsertBatch(target(matcher));
+        batch.append(statement, matcher);
+        return batch;
+    }
+
+    /**
+     * Adds the statement to this batch if it inserts into the same table and columns with the same settings.
+     *
+     * @return {@code true} if the statement was added.
+     */
+    public boolean add(SqlStatement statement) {
+        if (!ClickHouseSqlStatement.getSettings(statement).equals(ClickHouseSqlStatement.getSettings(getFirstStatement()))) {
+            return false;
+        }
+        Matcher matcher = INSERT_VALUES.matcher(ClickHouseParser.stripLeadingComments(statement.getSql()));
+        if (!matcher.matches() || !target.equals(target(matcher))) {
+            return false;
+        }
+        append(statement, matcher);
+        return true;
+    }
+
+    public int size() {
+        return statements.size();
+    }
+
+    /**
+     * @return The statement the batch was started with, used to report failures.
+     */
+    public SqlStatement getFirstStatement() {
+        return statements.get(0);
+    }
+
+    /**
+     * @param asyncInsert Whether to let the server buffer the rows with {@code async_insert}.
+     * @return The combined {@code INSERT} statement.
+     */
+    public String toSql(boolean asyncInsert) {
+        String settings = asyncInsert ? " SETTINGS async_insert = 1, wait_for_async_insert = 1" : "";
+        return "INSERT INTO " + target + settings + " VALUES " + values;
+    }
+
+    private void append(SqlStatement statement, Matcher matcher) {
+        if (!statements.isEmpty()) {
+            values.append(", ");
+        }
+        values.append(matcher.group(3).trim());
+        statements.add(statement);
+    }
+
+    private static String target(Matcher matcher) {
+        String columns = matcher.group(2) == null ? "" : " " + matcher.group(2).replaceAll("\\s+", " ");
+        return matcher.group(1) + columns;
+    }
+}
@@ -0,0 +1,243 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.util.FlywayDbWebsiteLinks;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A lease-based lock stored in a {@code KeeperMap} table, so that it is shared by every replica of a cluster.
+ * <p>
+ * The lease is acquired by inserting a row with {@code keeper_map_strict_mode} enabled, which fails atomically if the
+ * key already exists. While the lock is held, a heartbeat thread extends the lease on a dedicated connection. A lease
+ * which has not been renewed in time is considered abandoned and may be taken over by another Flyway instance. If that
+ * happens to this instance's lease, releasing the lock reports it without hiding the outcome of the migration.
+ * Requires {@code keeper_map_path_prefix} to be set in the server configuration.
+ */
+@CustomLog
+public class ClickHouseKeeperLock {
+    private static final String LOCK_TABLE_SUFFIX = "_lock";
+
+    /**
+     * The error code of ClickHouse's KEEPER_EXCEPTION, raised among others when a strict KeeperMap insert finds its key.
+     */
+    private static final int KEEPER_EXCEPTION = 999;
+
+    private final ClickHouseDatabase database;
+    private final String schema;
+    private final String lockTableName;
+    private final String lockTable;
+    private final String lockName;
+    private final String owner = UUID.randomUUID().toString();
+    private final long leaseMillis;
+    private final long pollIntervalMillis;
+
+    private ClickHouseConnection heartbeatConnection;
+    private ScheduledExecutorService heartbeat;
+    private volatile long renewedAtMillis;
+    private volatile boolean leaseLost;
+
+    /**
+     * @param database The database-specific support.
+     * @param table The table to lock, usually the schema history table.
+     */
+    public ClickHouseKeeperLock(ClickHouseDatabase database, ClickHouseTable table) {
+        this.database = database;
+        this.schema = table.getSchema().getName();
+        this.lockTableName = table.getName() + LOCK_TABLE_SUFFIX;
+        this.lockTable = database.quote(schema, lockTableName);
+        this.lockName = table.toString();
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(database.getLockLeaseSeconds());
+        this.pollIntervalMillis = database.getLockPollIntervalMillis();
+    }
+
+    public void acquire() throws SQLException {
+        createLockTableIfNecessary();
+
+        int retriesRemaining = database.getConfiguration().getLockRetryCount();
+        while (!tryAcquire()) {
+            if (retriesRemaining == 0) {
+                throw new FlywayException("Number of retries exceeded while attempting to acquire " + lockName + " from " + lockTable + ". " +
+                        "Configure the number of retries with the 'lockRetryCount' configuration option: " + FlywayDbWebsiteLinks.LOCK_RETRY_COUNT);
+            }
+            if (retriesRemaining > 0) {
+                retriesRemaining--;
+            }
+            sleepWithJitter();
+        }
+
+        LOG.debug("Acquired " + lockName + " as " + owner + " for " + leaseMillis + " ms");
+        startHeartbeat();
+    }
+
+    /**
+     * Releases the lease. Never fails, as it runs while unlocking and must not hide the outcome of the migration: a
+     * lease which could not be deleted simply expires, and a lease which was lost is reported as an error.
+     */
+    public void release() {
+        stopHeartbeat();
+        if (isLeaseLost()) {
+            LOG.error("Lost the lease on " + lockName + " while migrating. Another Flyway instance may have"
+                    + " migrated concurrently, check the schema history before migrating again.");
+        }
+        try {
+            // Only ever deletes this instance's own row, even if the lease has been taken over meanwhile
+            database.getSystemConnection().getJdbcTemplate().execute(
+                    "ALTER TABLE " + lockTable + " DELETE WHERE lock_name = ? AND owner = ?", lockName, owner);
+            LOG.debug("Released " + lockName);
+        } catch (SQLException | FlywayException e) {
+            LOG.warn("Unable to release " + lockName + ", it will be available again once its lease expires: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Whether the lease has been taken over or has not been renewed in time since it was acquired.
+     */
+    public boolean isLeaseLost() {
+        return leaseLost || System.currentTimeMillis() - renewedAtMillis > leaseMillis;
+    }
+
+    private void createLockTableIfNecessary() throws SQLException {
+        if (database.getMetadataSnapshot().tableExists(schema, lockTableName)) {
+            return;
+        }
+
+        database.getSystemConnection().getJdbcTemplate().execute(
+                "CREATE TABLE IF NOT EXISTS " + lockTable + database.getOnClusterClause(schema) + "(" +
+                        "    lock_name String," +
+                        "    owner String," +
+                        "    expires_at DateTime64(3)" +
+                        ") ENGINE = KeeperMap('/flyway/" + schema + "/" + lockTableName + "')" +
+                        " PRIMARY KEY lock_name");
+        database.getMetadataSnapshot().tableCreated(schema, lockTableName, "KeeperMap");
+    }
+
+    private boolean tryAcquire() throws SQLException {
+        try {
+            database.getSystemConnection().getJdbcTemplate().execute(
+                    "INSERT INTO " + lockTable + " (lock_name, owner, expires_at)" +
+                            " SELECT ?, ?, now64(3) + toIntervalMillisecond(" + leaseMillis + ")" +
+                            " SETTINGS keeper_map_strict_mode = 1",
+                    lockName, owner);
+            return true;
+        } catch (SQLException e) {
+            if (!isDuplicateKey(e)) {
+                throw new FlywaySqlException("Unable to acquire " + lockName + " from " + lockTable, e);
+            }
+            // The key already exists, check whether its lease has expired
+            LOG.debug("Lock row for " + lockName + " already exists: " + e.getMessage());
+        }
+
+        List<String> holders = database.getSystemConnection().getJdbcTemplate().query(
+                "SELECT owner FROM " + lockTable + " WHERE lock_name = ? AND expires_at < now64(3)",
+                rs -> rs.getString(1),
+                lockName);
+        if (!holders.isEmpty()) {
+            LOG.warn("Lease of " + lockName + " held by " + holders.get(0) + " has expired. Taking it over.");
+            database.getSystemConnection().getJdbcTemplate().execute(
+                    "ALTER TABLE " + lockTable + " DELETE WHERE lock_name = ? AND owner = ? AND expires_at < now64(3)",
+                    lockName, holders.get(0));
+        } else {
+            LOG.debug("Another Flyway instance holds " + lockName + ". Waiting for it to complete.");
+        }
+        return false;
+    }
+
+    private static boolean isDuplicateKey(SQLException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            String message = String.valueOf(cause.getMessage());
+            boolean keeperException = (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == KEEPER_EXCEPTION)
+                    || message.contains("Code: " + KEEPER_EXCEPTION + ".");
+            if (keeperException && (message.contains("already exists") || message.contains("Node exists"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void sleepWithJitter() {
+        long sleep = pollIntervalMillis / 2 + ThreadLocalRandom.current().nextLong(pollIntervalMillis + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlywayException("Interrupted while attempting to acquire " + lockName, e);
+        }
+    }
+
+    private void startHeartbeat() {
+        renewedAtMillis = System.currentTimeMillis();
+        leaseLost = false;
+        heartbeatConnection = database.openConnection();
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "flyway-clickhouse-lock-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(leaseMillis / 3, 1);
+        heartbeat.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew() {
+        long renewingAtMillis = System.currentTimeMillis();
+        try {
+            heartbeatConnection.getJdbcTemplate().execute(
+                    "ALTER TABLE " + lockTable + " UPDATE expires_at = now64(3) + toIntervalMillisecond(" + leaseMillis + ")" +
+                            " WHERE lock_name = ? AND owner = ?",
+                    lockName, owner);
+            if (heartbeatConnection.getJdbcTemplate().queryForInt(
+                    "SELECT count() FROM " + lockTable + " WHERE lock_name = ? AND owner = ?", lockName, owner) == 0) {
+                LOG.warn("Lost the lease on " + lockName + ". Another Flyway instance may be migrating concurrently.");
+                leaseLost = true;
+            } else {
+                renewedAtMillis = renewingAtMillis;
+            }
+        } catch (SQLException | FlywayException e) {
+            LOG.warn("Unable to renew the lease on " + lockName + ": " + e.getMessage());
+        }
+    }
+
+    private void stopHeartbeat() {
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            try {
+                heartbeat.awaitTermination(pollIntervalMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            heartbeat = null;
+        }
+        if (heartbeatConnection != null) {
+            heartbeatConnection.close();
+            heartbeatConnection = null;
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory view of {@code system.databases} and {@code system.tables} for the schemas Flyway works with.
+ * <p>
+ * The snapshot is loaded with a single query the first time it is needed and lives as long as the
+ * {@link ClickHouseDatabase} it belongs to, i.e. one Flyway command, unless it is shared across several
+ * databases by {@link ClickHouseTenantMigrator}. DDL issued through
+ * {@link ClickHouseSchema} and {@link ClickHouseTable} patches it in place. DDL run by SQL scripts (migrations as
+ * well as the schema history create script) cannot be tracked precisely and discards the schemas it may have touched
+ * instead, in every snapshot of the process, see {@link #ddlExecuted(String, String)}. Other schemas stay loaded.
+ */
+@CustomLog
+public class ClickHouseMetadataSnapshot {
+    private static final ThreadLocal<ClickHouseMetadataSnapshot> SHARED = new ThreadLocal<>();
+
+    /**
+     * Incremented for a schema whenever a SQL script runs DDL which may touch it. A schema loaded before the last
+     * increment is stale.
+     */
+    private static final Map<String, Long> SCHEMA_GENERATIONS = new ConcurrentHashMap<>();
+
+    private static final Pattern QUALIFIER = Pattern.compile(
+            "(?<![\\w.`\"])(?:`([^`]+)`|\"([^\"]+)\"|([A-Za-z_]\\w*))\\s*\\.(?=\\s*[`\"A-Za-z_])");
+    private static final Pattern DATABASE_NAME = Pattern.compile(
+            "\\bDATABASE\\s+(?:IF\\s+(?:NOT\\s+)?EXISTS\\s+)?(?:`([^`]+)`|\"([^\"]+)\"|(\\w+))", Pattern.CASE_INSENSITIVE);
+
+    private final Supplier<JdbcTemplate> systemJdbcTemplate;
+
+    /**
+     * Schemas loaded along with the first lookup.
+     */
+    private final Set<String> preloadSchemas;
+
+    /**
+     * Engines of the tables of every loaded schema that exists, keyed by schema and table name.
+     */
+    private final Map<String, Map<String, String>> tablesBySchema = new HashMap<>();
+
+    /**
+     * Engines of every loaded schema that exists.
+     */
+    private final Map<String, String> databaseEngines = new HashMap<>();
+
+    /**
+     * Every schema the snapshot knows about, whether it exists or not, mapped to the DDL generation it is up to date
+     * with.
+     */
+    private final Map<String, Long> loadedSchemas = new LinkedHashMap<>();
+
+    private boolean preloaded;
+
+    /**
+     * @param systemJdbcTemplate Supplies the template of the connection used to query the system tables.
+     * @param preloadSchemas The schemas to load along with the first lookup.
+     */
+    ClickHouseMetadataSnapshot(Supplier<JdbcTemplate> systemJdbcTemplate, Collection<String> preloadSchemas) {
+        this.systemJdbcTemplate = systemJdbcTemplate;
+        this.preloadSchemas = new LinkedHashSet<>(preloadSchemas);
+    }
+
+    /**
+     * @return The snapshot shared by every {@link ClickHouseDatabase} created on the current thread, if any.
+     */
+    static ClickHouseMetadataSnapshot getShared() {
+        return SHARED.get();
+    }
+
+    /**
+     * Shares the snapshot with every {@link ClickHouseDatabase} created on the current thread until
+     * {@link #unshare()} is called.
+     */
+    static void share(ClickHouseMetadataSnapshot snapshot) {
+        SHARED.set(snapshot);
+    }
+
+    static void unshare() {
+        SHARED.remove();
+    }
+
+    /**
+     * Marks the schemas a SQL script statement may have changed as stale in every snapshot. Each snapshot reloads them
+     * on their next lookup.
+     *
+     * @param sql The DDL statement.
+     * @param currentSchema The current database of the connection the statement ran on, {@code null} if unknown.
+     */
+    static void ddlExecuted(String sql, String currentSchema) {
+        for (String schema : getTouchedSchemas(sql, currentSchema)) {
+            SCHEMA_GENERATIONS.merge(schema, 1L, Long::sum);
+        }
+    }
+
+    /**
+     * @return The schemas a DDL statement may have changed: the current one, for its unqualified names, every name
+     * qualifying another one and every database it names. Over-approximating only costs a reload.
+     */
+    static Set<String> getTouchedSchemas(String sql, String currentSchema) {
+        Set<String> schemas = new LinkedHashSet<>();
+        if (currentSchema != null) {
+            schemas.add(currentSchema);
+        }
+        for (Pattern pattern : new Pattern[]{QUALIFIER, DATABASE_NAME}) {
+            Matcher matcher = pattern.matcher(sql);
+            while (matcher.find()) {
+                for (int group = 1; group <= 3; group++) {
+                    if (matcher.group(group) != null) {
+                        schemas.add(matcher.group(group));
+                    }
+                }
+            }
+        }
+        return schemas;
+    }
+
+    public synchronized boolean schemaExists(String schema) throws SQLException {
+        ensureLoaded(schema);
+        return tablesBySchema.containsKey(schema);
+    }
+
+    public synchronized boolean schemaEmpty(String schema) throws SQLException {
+        ensureLoaded(schema);
+        return tablesBySchema.getOrDefault(schema, Collections.emptyMap()).isEmpty();
+    }
+
+    public synchronized boolean tableExists(String schema, String table) throws SQLException {
+        ensureLoaded(schema);
+        return tablesBySchema.getOrDefault(schema, Collections.emptyMap()).containsKey(table);
+    }
+
+    /**
+     * @return The engine of the database, or {@code null} if it does not exist.
+     */
+    public synchronized String getDatabaseEngine(String schema) throws SQLException {
+        ensureLoaded(schema);
+        return databaseEngines.get(schema);
+    }
+
+    /**
+     * @return The engine of the table, or {@code null} if it does not exist.
+     */
+    public synchronized String getEngine(String schema, String table) throws SQLException {
+        ensureLoaded(schema);
+        return tablesBySchema.getOrDefault(schema, Collections.emptyMap()).get(table);
+    }
+
+    public synchronized List<String> getTables(String schema) throws SQLException {
+        ensureLoaded(schema);
+        return new ArrayList<>(tablesBySchema.getOrDefault(schema, Collections.emptyMap()).keySet());
+    }
+
+    public synchronized void schemaCreated(String schema, String engine) {
+        loadedSchemas.putIfAbsent(schema, getGeneration(schema));
+        tablesBySchema.putIfAbsent(schema, new LinkedHashMap<>());
+        databaseEngines.put(schema, engine);
+    }
+
+    public synchronized void schemaDropped(String schema) {
+        loadedSchemas.putIfAbsent(schema, getGeneration(schema));
+        tablesBySchema.remove(schema);
+        databaseEngines.remove(schema);
+    }
+
+    public synchronized void tableCreated(String schema, String table, String engine) {
+        Map<String, String> tables = tablesBySchema.get(schema);
+        if (tables != null) {
+            tables.put(table, engine);
+        }
+    }
+
+    public synchronized void tableDropped(String schema, String table) {
+        Map<String, String> tables = tablesBySchema.get(schema);
+        if (tables != null) {
+            tables.remove(table);
+        }
+    }
+
+    /**
+     * Discards what has been loaded for the given schema. The next lookup of that schema reloads it.
+     */
+    public synchronized void invalidate(String schema) {
+        loadedSchemas.remove(schema);
+        tablesBySchema.remove(schema);
+        databaseEngines.remove(schema);
+    }
+
+    /**
+     * Loads the given schemas in a single query, unless they have been loaded already.
+     */
+    public synchronized void preload(Collection<String> schemas) throws SQLException {
+        Set<String> missing = new LinkedHashSet<>();
+        for (String schema : schemas) {
+            if (!isLoaded(schema)) {
+                missing.add(schema);
+            }
+        }
+        preloaded = true;
+        if (!missing.isEmpty()) {
+            load(missing);
+        }
+    }
+
+    private void ensureLoaded(String schema) throws SQLException {
+        if (isLoaded(schema)) {
+            return;
+        }
+
+        Set<String> schemas = new LinkedHashSet<>();
+        if (!preloaded) {
+            for (String preloadSchema : preloadSchemas) {
+                if (!isLoaded(preloadSchema)) {
+                    schemas.add(preloadSchema);
+                }
+            }
+            preloaded = true;
+        }
+        schemas.add(schema);
+        load(schemas);
+    }
+
+    /**
+     * @return Whether the schema has been loaded and no script ran DDL which may have touched it since.
+     */
+    private boolean isLoaded(String schema) {
+        Long generation = loadedSchemas.get(schema);
+        return generation != null && generation == getGeneration(schema);
+    }
+
+    private static long getGeneration(String schema) {
+        return SCHEMA_GENERATIONS.getOrDefault(schema, 0L);
+    }
+
+    private void load(Collection<String> schemas) throws SQLException {
+        String placeholders = schemas.stream().map(s -> "?").collect(Collectors.joining(", "));
+        Object[] params = new Object[schemas.size() * 2];
+        int i = 0;
+        for (String schema : schemas) {
+            params[i] = schema;
+            params[i + schemas.size()] = schema;
+            i++;
+        }
+
+        // Read the generations first, so that DDL running concurrently with the query leaves the schemas stale
+        Map<String, Long> generations = new LinkedHashMap<>();
+        for (String schema : schemas) {
+            generations.put(schema, getGeneration(schema));
+        }
+
+        // Databases come back with an empty table name so that empty databases are seen as well
+        List<String[]> rows = systemJdbcTemplate.get().query(
+                "SELECT name, '', engine FROM system.databases WHERE name IN (" + placeholders + ")" +
+                        " UNION ALL " +
+                        "SELECT database, name, engine FROM system.tables WHERE database IN (" + placeholders + ")",
+                rs -> new String[]{rs.getString(1), rs.getString(2), rs.getString(3)},
+                params);
+
+        for (String schema : schemas) {
+            loadedSchemas.put(schema, generations.get(schema));
+            tablesBySchema.remove(schema);
+            databaseEngines.remove(schema);
+        }
+        for (String[] row : rows) {
+            Map<String, String> tables = tablesBySchema.computeIfAbsent(row[0], s -> new LinkedHashMap<>());
+            if (row[1].isEmpty()) {
+                databaseEngines.put(row[0], row[2]);
+            } else {
+                tables.put(row[1], row[2]);
+            }
+        }
+
+        LOG.debug("Loaded ClickHouse metadata snapshot for " + schemas.size() + " schema(s): " + rows.size() + " rows");
+    }
+}
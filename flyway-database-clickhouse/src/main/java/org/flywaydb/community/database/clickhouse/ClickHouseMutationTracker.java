@@ -0,0 +1,178 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Tracks mutations ({@code ALTER TABLE ... UPDATE/DELETE}, {@code MATERIALIZE INDEX/COLUMN}, lightweight
+ * {@code DELETE FROM}, ...) which have been submitted asynchronously, and waits for them in {@code system.mutations} only before a statement which references a
+ * mutated table and at the end of a migration.
+ * <p>
+ * Mutations of the same table are applied by the server in submission order, and mutations of different tables run
+ * concurrently, so mutations never need to wait for each other.
+ */
+@CustomLog
+public class ClickHouseMutationTracker {
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private static final String TABLE_NAME = "((?:`[^`]+`|\"[^\"]+\"|[\\w.])+)";
+    private static final Pattern MUTATION = Pattern.compile(
+            "^\\s*(?:ALTER\\s+TABLE\\s+" + TABLE_NAME + "(?:\\s+ON\\s+CLUSTER\\s+\\S+)?\\s+"
+                    + "(?:UPDATE|DELETE|MATERIALIZE|CLEAR|APPLY\\s+DELETED\\s+MASK|MODIFY\\s+COLUMN|DROP\\s+COLUMN)\\b"
+                    + "|DELETE\\s+FROM\\s+" + TABLE_NAME + ")",
+            Pattern.CASE_INSENSITIVE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long timeoutMillis;
+
+    /**
+     * The mutated tables, as pairs of database (empty for the current one) and table name, with the pattern finding
+     * references to them.
+     */
+    private final Map<List<String>, Pattern> pendingTables = new LinkedHashMap<>();
+    private long submittedSince = -1;
+
+    /**
+     * @param jdbcTemplate The template of the connection the migration runs on.
+     * @param timeoutSeconds How long to wait for the mutations at a barrier before failing.
+     */
+    public ClickHouseMutationTracker(JdbcTemplate jdbcTemplate, int timeoutSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    public static boolean isMutation(String sql) {
+        return MUTATION.matcher(ClickHouseParser.stripLeadingComments(sql)).find();
+    }
+
+    /**
+     * Waits for pending mutations first if the given statement reads or changes a mutated table.
+     */
+    public void beforeStatement(String sql) throws SQLException {
+        if (isMutation(sql)) {
+            if (submittedSince < 0) {
+                submittedSince = jdbcTemplate.queryForLong("SELECT toUnixTimestamp(now())");
+            }
+            return;
+        }
+        for (Pattern table : pendingTables.values()) {
+            if (table.matcher(sql).find()) {
+                await();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Records a statement which has been submitted successfully.
+     */
+    public void afterStatement(String sql) {
+        Matcher matcher = MUTATION.matcher(ClickHouseParser.stripLeadingComments(sql));
+        if (!matcher.find()) {
+            return;
+        }
+        String name = matcher.group(1) != null ? matcher.group(1) : matcher.group(2);
+        String[] parts = name.replace("`", "").replace("\"", "").split("\\.", 2);
+        List<String> table = parts.length == 2 ? List.of(parts[0], parts[1]) : List.of("", parts[0]);
+        pendingTables.computeIfAbsent(table,
+                t -> Pattern.compile("\\b" + Pattern.quote(t.get(1)) + "\\b", Pattern.CASE_INSENSITIVE));
+    }
+
+    /**
+     * Waits until all mutations submitted since the last barrier are done.
+     *
+     * @throws FlywayException if a mutation keeps failing or the mutations did not finish in time.
+     */
+    public void await() throws SQLException {
+        if (pendingTables.isEmpty()) {
+            return;
+        }
+
+        List<Object> params = new ArrayList<>();
+        StringBuilder tables = new StringBuilder();
+        for (List<String> table : pendingTables.keySet()) {
+            tables.append(tables.length() == 0 ? "" : " OR ");
+            if (table.get(0).isEmpty()) {
+                tables.append("(database = currentDatabase() AND table = ?)");
+            } else {
+                tables.append("(database = ? AND table = ?)");
+                params.add(table.get(0));
+            }
+            params.add(table.get(1));
+        }
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        String lastProgress = null;
+        while (true) {
+            List<Map<String, String>> mutations = jdbcTemplate.queryForList(
+                    "SELECT database, table, mutation_id, command, parts_to_do, latest_fail_reason FROM system.mutations" +
+                            " WHERE is_done = 0 AND create_time >= toDateTime(" + submittedSince + ") AND (" + tables + ")" +
+                            " ORDER BY database, table, create_time",
+                    params.toArray());
+            if (mutations.isEmpty()) {
+                break;
+            }
+
+            for (Map<String, String> mutation : mutations) {
+                String failReason = mutation.get("latest_fail_reason");
+                if (failReason != null && !failReason.isEmpty()) {
+                    throw new FlywayException("Mutation " + mutation.get("mutation_id") + " on " + mutation.get("database")
+                            + "." + mutation.get("table") + " (" + mutation.get("command") + ") is failing: " + failReason
+                            + "\nUse KILL MUTATION to abort it");
+                }
+            }
+
+            String progress = mutations.stream()
+                    .map(m -> m.get("database") + "." + m.get("table") + " " + m.get("mutation_id") + ": " + m.get("parts_to_do") + " part(s) to do")
+                    .collect(Collectors.joining(", "));
+            if (!progress.equals(lastProgress)) {
+                LOG.info("Waiting for " + mutations.size() + " mutation(s): " + progress);
+                lastProgress = progress;
+            }
+            if (System.currentTimeMillis() > deadline) {
+                throw new FlywayException("Timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)
+                        + "s waiting for mutations: " + progress);
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FlywayException("Interrupted while waiting for mutations", e);
+            }
+        }
+
+        pendingTables.clear();
+        submittedSince = -1;
+    }
+}
@@ -20,12 +20,219 @@
 
 package org.flywaydb.community.database.clickhouse;
 
+import org.flywaydb.core.api.FlywayException;
 import org.flywaydb.core.api.configuration.Configuration;
 import org.flywaydb.core.internal.parser.Parser;
+import org.flywaydb.core.internal.parser.ParserContext;
 import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.parser.PeekingReader;
+import org.flywaydb.core.internal.parser.Recorder;
+import org.flywaydb.core.internal.parser.StatementType;
+import org.flywaydb.core.internal.parser.Token;
+import org.flywaydb.core.internal.parser.TokenType;
+import org.flywaydb.core.internal.sqlscript.Delimiter;
+import org.flywaydb.core.internal.sqlscript.ParsedSqlStatement;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public class ClickHouseParser extends Parser {
+    private static final StatementType INSERT_STATEMENT = new StatementType();
+    private static final Pattern INSERT_REGEX = Pattern.compile("^\\s*INSERT\\b");
+    private static final String DIRECTIVE_PREFIX = "-- clickhouse:";
+    private static final String SETTINGS_DIRECTIVE = DIRECTIVE_PREFIX + "settings";
+    private static final Pattern SETTING_REGEX = Pattern.compile(
+            "\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*=\\s*('(?:[^'\\\\]|\\\\.)*'|[^\\s,]+)\\s*(?:,|$)");
+
+    /**
+     * The settings directives of the script, keyed by their position.
+     */
+    private final TreeMap<Integer, Map<String, String>> settingsDirectives = new TreeMap<>();
+
     protected ClickHouseParser(Configuration configuration, ParsingContext parsingContext, int peekDepth) {
-        super(configuration, parsingContext, peekDepth);
+        // Directives are recognised by their prefix, so it must fit in the peeked characters
+        super(configuration, parsingContext, Math.max(peekDepth, DIRECTIVE_PREFIX.length()));
+    }
+
+    @Override
+    protected boolean isCommentDirective(String peek) {
+        return peek.regionMatches(true, 0, DIRECTIVE_PREFIX, 0, DIRECTIVE_PREFIX.length());
+    }
+
+    @Override
+    protected boolean isSingleLineComment(String peek, ParserContext context, int col) {
+        // ClickHouse also accepts # (and #!) line comments
+        return peek.startsWith("--") || peek.startsWith("#");
+    }
+
+    @Override
+    protected Token handleCommentDirective(PeekingReader reader, ParserContext context, int pos, int line, int col) throws IOException {
+        boolean settingsDirective = reader.peekIgnoreCase(SETTINGS_DIRECTIVE);
+        String text = reader.readUntilExcluding('\n', '\r');
+        if (settingsDirective) {
+            settingsDirectives.put(pos, parseSettings(text.substring(SETTINGS_DIRECTIVE.length()), line));
+        }
+        return new Token(TokenType.COMMENT, pos, line, col, text, text, context.getParensDepth());
+    }
+
+    /**
+     * Statements carry the settings of all the {@code -- clickhouse:settings} directives which precede them in the
+     * script, later directives overriding earlier ones.
+     */
+    @Override
+    protected ParsedSqlStatement createStatement(PeekingReader reader, Recorder recorder, int statementPos, int statementLine,
+                                                 int statementCol, int nonCommentPartPos, int nonCommentPartLine,
+                                                 int nonCommentPartCol, StatementType statementType, boolean canExecuteInTransaction,
+                                                 Delimiter delimiter, String sql, List<Token> tokens, boolean batchable) throws IOException {
+        Map<String, String> settings = new LinkedHashMap<>();
+        settingsDirectives.headMap(nonCommentPartPos).values().forEach(settings::putAll);
+        if (settings.isEmpty()) {
+            return super.createStatement(reader, recorder, statementPos, statementLine, statementCol, nonCommentPartPos,
+                    nonCommentPartLine, nonCommentPartCol, statementType, canExecuteInTransaction, delimiter, sql, tokens, batchable);
+        }
+        return new ClickHouseSqlStatement(statementPos, statementLine, statementCol, sql, delimiter, canExecuteInTransaction,
+                batchable, settings);
+    }
+
+    private static Map<String, String> parseSettings(String text, int line) {
+        Map<String, String> settings = new LinkedHashMap<>();
+        Matcher matcher = SETTING_REGEX.matcher(text);
+        int end = 0;
+        while (end < text.length() && matcher.find(end) && matcher.start() == end) {
+            String value = matcher.group(2);
+            settings.put(matcher.group(1), value.startsWith("'") || value.matches("-?[0-9.]+") ? value : "'" + value + "'");
+            end = matcher.end();
+        }
+        if (settings.isEmpty() || !text.substring(end).isBlank()) {
+            throw new FlywayException("Invalid " + SETTINGS_DIRECTIVE + " directive at line " + line
+                    + ": expected a comma-separated list of name=value pairs");
+        }
+        return settings;
+    }
+
+    @Override
+    protected StatementType detectStatementType(String simplifiedStatement, ParserContext context, PeekingReader reader) {
+        if (INSERT_REGEX.matcher(simplifiedStatement).find()) {
+            return INSERT_STATEMENT;
+        }
+        return super.detectStatementType(simplifiedStatement, context, reader);
+    }
+
+    /**
+     * The data of an {@code INSERT ... FORMAT <name>} or {@code INSERT ... VALUES} statement is copied into the statement
+     * as an opaque payload rather than being tokenized, so large seed scripts do not produce a token per value.
+     */
+    @Override
+    protected Token handleKeyword(PeekingReader reader, ParserContext context, int pos, int line, int col, String keyword) throws IOException {
+        if (context.getStatementType() == INSERT_STATEMENT && context.getParensDepth() == 0) {
+            String delimiter = context.getDelimiter().getDelimiter();
+            if ("FORMAT".equalsIgnoreCase(keyword)) {
+                reader.readWhitespace();
+                String format = reader.readKeywordPart(context.getDelimiter(), context);
+                if ("Values".equalsIgnoreCase(format)) {
+                    skipValues(reader, delimiter);
+                } else {
+                    skipDataBlock(reader, delimiter);
+                }
+            } else if ("VALUES".equalsIgnoreCase(keyword)) {
+                skipValues(reader, delimiter);
+            }
+        }
+        return super.handleKeyword(reader, context, pos, line, col, keyword);
+    }
+
+    /**
+     * Skips raw data in formats such as CSV or JSONEachRow. As these may contain unbalanced quotes and delimiters, the
+     * block only ends at a delimiter which terminates a line, or at the end of the script.
+     */
+    private static void skipDataBlock(PeekingReader reader, String delimiter) throws IOException {
+        char delimiterStart = delimiter.charAt(0);
+        while (!(reader.peek(delimiterStart) && isDelimiterAtEndOfLine(reader, delimiter))) {
+            if (reader.read() == -1) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Skips a list of value tuples, which ends at the first delimiter outside a string literal, quoted identifier or
+     * comment.
+     */
+    private static void skipValues(PeekingReader reader, String delimiter) throws IOException {
+        char delimiterStart = delimiter.charAt(0);
+        while (!(reader.peek(delimiterStart) && reader.peek(delimiter))) {
+            if (reader.peek("--")) {
+                reader.swallowUntilExcluding('\n', '\r');
+            } else if (reader.peek("/*")) {
+                reader.swallow(2);
+                reader.swallowUntilExcluding("*/");
+                reader.swallow(2);
+            } else {
+                int c = reader.read();
+                if (c == -1) {
+                    return;
+                }
+                if (c == '\'' || c == '"' || c == '`') {
+                    skipQuoted(reader, (char) c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Skips the rest of a quoted literal or identifier, which may escape its quote with a backslash or by doubling it.
+     */
+    private static void skipQuoted(PeekingReader reader, char quote) throws IOException {
+        while (true) {
+            int c = reader.read();
+            if (c == -1) {
+                return;
+            }
+            if (c == '\\') {
+                if (reader.read() == -1) {
+                    return;
+                }
+            } else if (c == quote) {
+                if (!reader.peek(quote)) {
+                    return;
+                }
+                reader.swallow(1);
+            }
+        }
+    }
+
+    private static boolean isDelimiterAtEndOfLine(PeekingReader reader, String delimiter) throws IOException {
+        String next = reader.peek(delimiter.length() + 1);
+        if (!next.startsWith(delimiter)) {
+            return false;
+        }
+        return next.length() == delimiter.length() || next.charAt(delimiter.length()) == '\n' || next.charAt(delimiter.length()) == '\r';
+    }
+
+    /**
+     * @return The SQL of a statement without the comments the parser keeps in front of it: {@code --} and {@code #}
+     * line comments, as recognized by {@link #isSingleLineComment}, and block comments.
+     */
+    static String stripLeadingComments(String sql) {
+        int pos = 0;
+        while (true) {
+            while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+                pos++;
+            }
+            if (sql.startsWith("--", pos) || sql.startsWith("#", pos)) {
+                int end = sql.indexOf('\n', pos);
+                pos = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", pos)) {
+                int end = sql.indexOf("*/", pos + 2);
+                pos = end < 0 ? sql.length() : end + 2;
+            } else {
+                return sql.substring(pos);
+            }
+        }
     }
 }
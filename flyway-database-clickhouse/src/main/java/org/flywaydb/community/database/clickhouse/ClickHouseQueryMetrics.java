@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Result;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tags every statement of a script with a deterministic {@code log_comment} made of the script name and the index of
+ * the statement, along with the queries run on its behalf, and the waits at the end of the script with a tag of their
+ * own. Collects the resource usage of the tagged queries from {@code system.query_log} and
+ * {@code system.processes} once the script has run.
+ */
+@CustomLog
+public class ClickHouseQueryMetrics {
+    private static final String TAG_PREFIX = "flyway:";
+    private static final String BARRIER_TAG = "barrier";
+    private static final List<String> COLUMNS = Arrays.asList(
+            "statement", "read_rows", "read_bytes", "written_rows", "memory_usage", "duration_ms");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String script;
+    private final String tagPrefix;
+    private String originalLogComment;
+    private long since;
+
+    public ClickHouseQueryMetrics(JdbcTemplate jdbcTemplate, SqlScript sqlScript) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.script = sqlScript.getResource().getFilename();
+        this.tagPrefix = TAG_PREFIX + script.replace("'", "").replace("\\", "") + ":";
+    }
+
+    /**
+     * Remembers the current {@code log_comment} and the server time the script starts at.
+     */
+    public void start() throws SQLException {
+        originalLogComment = jdbcTemplate.queryForString("SELECT getSetting('log_comment')");
+        since = jdbcTemplate.queryForLong("SELECT toUnixTimestamp(now())");
+    }
+
+    /**
+     * Tags the queries which follow with the given statement index.
+     */
+    public void tag(int statementIndex) throws SQLException {
+        tag(String.format("%04d", statementIndex));
+    }
+
+    /**
+     * Tags the queries which follow as waiting for the replicas and mutations at the end of the script, so that their
+     * cost is not attributed to its last statement.
+     */
+    public void tagBarrier() throws SQLException {
+        tag(BARRIER_TAG);
+    }
+
+    private void tag(String tag) throws SQLException {
+        jdbcTemplate.execute("SET log_comment = '" + tagPrefix + tag + "'");
+    }
+
+    /**
+     * Restores the {@code log_comment} the connection had before the script.
+     */
+    public void restore() throws SQLException {
+        if (originalLogComment != null) {
+            jdbcTemplate.execute("SET log_comment = '" + originalLogComment.replace("'", "\\'") + "'");
+            originalLogComment = null;
+        }
+    }
+
+    /**
+     * @return The read rows and bytes, written rows, peak memory and duration of each statement of the script.
+     */
+    public Result collect() throws SQLException {
+        try {
+            jdbcTemplate.execute("SYSTEM FLUSH LOGS");
+        } catch (SQLException e) {
+            LOG.debug("Unable to flush system logs, recent queries may be missing from the metrics: " + e.getMessage());
+        }
+
+        List<List<String>> data = jdbcTemplate.query(
+                "SELECT statement, sum(read_rows), sum(read_bytes), sum(written_rows), max(memory_usage), sum(duration_ms) FROM (" +
+                        " SELECT log_comment AS statement, toInt64(read_rows) AS read_rows, toInt64(read_bytes) AS read_bytes," +
+                        " toInt64(written_rows) AS written_rows, toInt64(memory_usage) AS memory_usage, toInt64(query_duration_ms) AS duration_ms" +
+                        " FROM system.query_log" +
+                        " WHERE event_date >= toDate(toDateTime(" + since + ")) AND event_time >= toDateTime(" + since + ")" +
+                        " AND type != 'QueryStart'" +
+                        " AND startsWith(log_comment, ?)" +
+                        " UNION ALL" +
+                        " SELECT Settings['log_comment'], toInt64(read_rows), toInt64(read_bytes), toInt64(written_rows)," +
+                        " toInt64(memory_usage), toInt64(elapsed * 1000)" +
+                        " FROM system.processes WHERE startsWith(Settings['log_comment'], ?)" +
+                        ") GROUP BY statement ORDER BY statement",
+                rs -> Arrays.asList(rs.getString(1).substring(tagPrefix.length()), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5), rs.getString(6)),
+                tagPrefix, tagPrefix);
+
+        long readRows = 0;
+        long readBytes = 0;
+        long writtenRows = 0;
+        long peakMemory = 0;
+        long duration = 0;
+        for (List<String> row : data) {
+            readRows += Long.parseLong(row.get(1));
+            readBytes += Long.parseLong(row.get(2));
+            writtenRows += Long.parseLong(row.get(3));
+            peakMemory = Math.max(peakMemory, Long.parseLong(row.get(4)));
+            duration += Long.parseLong(row.get(5));
+        }
+        LOG.info("ClickHouse metrics for " + script + ": " + data.size() + " statement(s), " + readRows + " rows ("
+                + readBytes + " bytes) read, " + writtenRows + " rows written, " + peakMemory + " bytes peak memory, "
+                + duration + " ms");
+
+        return new Result(-1, COLUMNS, data, "ClickHouse query metrics for " + script);
+    }
+}
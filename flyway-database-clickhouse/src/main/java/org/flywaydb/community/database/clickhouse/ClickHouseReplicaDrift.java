@@ -0,0 +1,70 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+/**
+ * A replica whose schema differs from the majority of the cluster.
+ */
+public final class ClickHouseReplicaDrift {
+    private final String database;
+    private final String host;
+    private final String fingerprint;
+    private final String majorityFingerprint;
+
+    /**
+     * @param database The database which differs.
+     * @param host The host name of the replica.
+     * @param fingerprint The fingerprint of the database on the replica, {@code null} if the database is missing.
+     * @param majorityFingerprint The fingerprint shared by the majority of the replicas.
+     */
+    public ClickHouseReplicaDrift(String database, String host, String fingerprint, String majorityFingerprint) {
+        this.database = database;
+        this.host = host;
+        this.fingerprint = fingerprint;
+        this.majorityFingerprint = majorityFingerprint;
+    }
+
+    public String getDatabase() {
+        return database;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    /**
+     * @return The fingerprint of the database on the replica, {@code null} if the database is missing.
+     */
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public String getMajorityFingerprint() {
+        return majorityFingerprint;
+    }
+
+    @Override
+    public String toString() {
+        return host + ": database " + database + (fingerprint == null
+                ? " is missing"
+                : " has fingerprint " + fingerprint + " instead of " + majorityFingerprint);
+    }
+}
@@ -20,16 +20,21 @@
 
 package org.flywaydb.community.database.clickhouse;
 
+import lombok.CustomLog;
 import org.flywaydb.core.internal.database.base.Schema;
 import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 import org.flywaydb.core.internal.util.StringUtils;
 
 import java.sql.SQLException;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
+@CustomLog
 public class ClickHouseSchema extends Schema<ClickHouseDatabase, ClickHouseTable> {
 
     private static final String DEFAULT_SCHEMA = "default";
+    private static final Pattern ENGINE = Pattern.compile("(?<![\\w`\"])ENGINE\\s*=\\s*(\\w+)", Pattern.CASE_INSENSITIVE);
 
     /**
      * @param jdbcTemplate The Jdbc Template for communicating with the DB.
@@ -42,16 +47,12 @@ public class ClickHouseSchema extends Schema<ClickHouseDatabase, ClickHouseTable
 
     @Override
     protected boolean doExists() throws SQLException {
-        ClickHouseConnection systemConnection = database.getSystemConnection();
-        int i = systemConnection.getJdbcTemplate().queryForInt("SELECT COUNT() FROM system.databases WHERE name = ?", name);
-        return i > 0;
+        return database.getMetadataSnapshot().schemaExists(name);
     }
 
     @Override
     protected boolean doEmpty() throws SQLException {
-        ClickHouseConnection systemConnection = database.getSystemConnection();
-        int i = systemConnection.getJdbcTemplate().queryForInt("SELECT COUNT() FROM system.tables WHERE database = ?", name);
-        return i == 0;
+        return database.getMetadataSnapshot().schemaEmpty(name);
     }
 
     @Override
@@ -59,30 +60,77 @@ public class ClickHouseSchema extends Schema<ClickHouseDatabase, ClickHouseTable
         ClickHouseConnection systemConnection = database.getSystemConnection();
         String clusterName = database.getClusterName();
         boolean isClustered = StringUtils.hasText(clusterName);
-        systemConnection.getJdbcTemplate().executeStatement("CREATE DATABASE " + database.quote(name) + (isClustered ? (" ON CLUSTER " + clusterName) : ""));
+        // The database itself is still created ON CLUSTER so that every replica joins it; DDL inside a Replicated
+        // database is then replicated by the engine
+        boolean isReplicated = database.isReplicatedDatabaseConfigured();
+        String engine = isReplicated
+                ? " ENGINE = Replicated('" + database.getReplicatedDatabasePath().replace("{database}", name) + "', '{shard}', '{replica}')"
+                : "";
+        systemConnection.getJdbcTemplate().executeStatement("CREATE DATABASE " + database.quote(name) + (isClustered ? (" ON CLUSTER " + clusterName) : "") + engine);
+        database.getMetadataSnapshot().schemaCreated(name, isReplicated ? "Replicated" : "Atomic");
     }
 
     @Override
     protected void doDrop() throws SQLException {
-        if (database.getMainConnection().getCurrentSchemaNameOrSearchPath().equals(name)) {
-            database.getMainConnection().doChangeCurrentSchemaOrSearchPathTo(Optional.ofNullable(database.getConfiguration().getDefaultSchema()).orElse(DEFAULT_SCHEMA));
-        }
+        leaveSchema();
         String clusterName = database.getClusterName();
         boolean isClustered = StringUtils.hasText(clusterName);
         jdbcTemplate.executeStatement("DROP DATABASE " + database.quote(name) + (isClustered ? (" ON CLUSTER " + clusterName) : ""));
+        database.getMetadataSnapshot().schemaDropped(name);
     }
 
     @Override
     protected void doClean() throws SQLException {
-        for (ClickHouseTable table : allTables()) {
-            table.drop();
+        if (database.isCleanDropDatabase()) {
+            // The whole database is owned by Flyway, so dropping and recreating it is much cheaper than dropping every
+            // table. It is recreated from its own definition, which keeps an engine and settings chosen outside Flyway.
+            ClickHouseConnection systemConnection = database.getSystemConnection();
+            String clusterName = database.getClusterName();
+            String onCluster = StringUtils.hasText(clusterName) ? " ON CLUSTER " + clusterName : "";
+            String createStatement = systemConnection.getJdbcTemplate().queryForString("SHOW CREATE DATABASE " + database.quote(name));
+            String recreateStatement = getRecreateStatement(createStatement, database.quote(name), onCluster);
+            if (recreateStatement != null) {
+                leaveSchema();
+                systemConnection.getJdbcTemplate().execute("DROP DATABASE " + database.quote(name) + onCluster + " SYNC");
+                database.getMetadataSnapshot().schemaDropped(name);
+                systemConnection.getJdbcTemplate().execute(recreateStatement);
+                Matcher engine = ENGINE.matcher(recreateStatement);
+                database.getMetadataSnapshot().schemaCreated(name, engine.find() ? engine.group(1) : null);
+                return;
+            }
+            LOG.warn("Unable to determine the engine of database " + database.quote(name) + ". Cleaning it table by table instead.");
+        }
+
+        new ClickHouseCleaner(jdbcTemplate, database, name).clean();
+    }
+
+    /**
+     * @param createStatement The definition of the database, as returned by {@code SHOW CREATE DATABASE}.
+     * @param quotedName The quoted name of the database.
+     * @param onCluster The {@code ON CLUSTER} clause to recreate the database with, empty if none.
+     * @return The statement recreating the database with the same engine, settings and comment, or {@code null} if the
+     * definition has no engine clause.
+     */
+    static String getRecreateStatement(String createStatement, String quotedName, String onCluster) {
+        Matcher engine = ENGINE.matcher(createStatement == null ? "" : createStatement);
+        if (!engine.find()) {
+            return null;
+        }
+        return "CREATE DATABASE " + quotedName + onCluster + " " + createStatement.substring(engine.start()).strip();
+    }
+
+    /**
+     * Moves the main connection to another database, as a database cannot be dropped while it is in use.
+     */
+    private void leaveSchema() throws SQLException {
+        if (name.equals(database.getMainConnection().getCurrentSchemaNameOrSearchPath())) {
+            database.getMainConnection().doChangeCurrentSchemaOrSearchPathTo(Optional.ofNullable(database.getConfiguration().getDefaultSchema()).orElse(DEFAULT_SCHEMA));
         }
     }
 
     @Override
     protected ClickHouseTable[] doAllTables() throws SQLException {
-        ClickHouseConnection systemConnection = database.getSystemConnection();
-        return systemConnection.getJdbcTemplate().queryForStringList("SELECT name FROM system.tables WHERE database = ?", name)
+        return database.getMetadataSnapshot().getTables(name)
                 .stream()
                 .map(this::getTable)
                 .toArray(ClickHouseTable[]::new);
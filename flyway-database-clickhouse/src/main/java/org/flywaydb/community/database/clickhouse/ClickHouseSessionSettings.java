@@ -0,0 +1,74 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Applies session settings on the migration connection, remembering the original value of each setting so that they
+ * can be restored once the script has run.
+ */
+public class ClickHouseSessionSettings {
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<String, String> originals = new LinkedHashMap<>();
+    private final Map<String, String> current = new HashMap<>();
+
+    public ClickHouseSessionSettings(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Applies the settings which differ from the ones currently applied.
+     *
+     * @param settings Setting names and SQL literals.
+     */
+    public void apply(Map<String, String> settings) throws SQLException {
+        for (Map.Entry<String, String> setting : settings.entrySet()) {
+            String name = setting.getKey();
+            if (setting.getValue().equals(current.get(name))) {
+                continue;
+            }
+            if (!originals.containsKey(name)) {
+                originals.put(name, jdbcTemplate.queryForString("SELECT toString(getSetting('" + name + "'))"));
+            }
+            jdbcTemplate.execute("SET " + name + " = " + setting.getValue());
+            current.put(name, setting.getValue());
+        }
+    }
+
+    /**
+     * Restores the original value of every setting which has been changed.
+     */
+    public void restore() throws SQLException {
+        for (Map.Entry<String, String> original : originals.entrySet()) {
+            String value = original.getValue();
+            jdbcTemplate.execute("SET " + original.getKey() + " = "
+                    + (value.matches("-?[0-9.]+") ? value : "'" + value.replace("'", "\\'") + "'"));
+        }
+        originals.clear();
+        current.clear();
+    }
+}
@@ -0,0 +1,263 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.callback.CallbackExecutor;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Result;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.jdbc.StatementInterceptor;
+import org.flywaydb.core.internal.sqlscript.DefaultSqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.util.StringUtils;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+@CustomLog
+public class ClickHouseSqlScriptExecutor extends DefaultSqlScriptExecutor {
+    private static final Map<String, String> ASYNC_MUTATION_SETTINGS = Map.of("mutations_sync", "0");
+    private static final Pattern DDL = Pattern.compile(
+            "^(?:CREATE|DROP|ALTER|RENAME|TRUNCATE|EXCHANGE|ATTACH|DETACH|UNDROP)\\b", Pattern.CASE_INSENSITIVE);
+
+    private ClickHouseDistributedDdlTracker distributedDdlTracker;
+    private ClickHouseMutationTracker mutationTracker;
+    private ClickHouseQueryMetrics queryMetrics;
+    private ClickHouseSessionSettings sessionSettings;
+    private int insertBatchSize = 1;
+    private boolean asyncInsert;
+    private ClickHouseInsertBatch insertBatch;
+    private int insertBatchIndex;
+    private int statementIndex;
+
+    public ClickHouseSqlScriptExecutor(JdbcTemplate jdbcTemplate, CallbackExecutor callbackExecutor, boolean undo,
+                                       boolean batch, boolean outputQueryResults, StatementInterceptor statementInterceptor) {
+        super(jdbcTemplate, callbackExecutor, undo, batch, outputQueryResults, statementInterceptor);
+    }
+
+    @Override
+    public List<Results> execute(SqlScript sqlScript, Configuration config) {
+        ClickHouseConfigurationExtension extension = config.getPluginRegister().getPlugin(ClickHouseConfigurationExtension.class);
+        if (extension.isPipelineDistributedDdl() && StringUtils.hasText(extension.getClusterName())) {
+            distributedDdlTracker = new ClickHouseDistributedDdlTracker(jdbcTemplate, extension.getClusterName(),
+                    extension.getDistributedDdlTimeoutSeconds());
+        }
+        if (extension.getMutationBarrier() == ClickHouseConfigurationExtension.MutationBarrier.SCRIPT) {
+            mutationTracker = new ClickHouseMutationTracker(jdbcTemplate, extension.getMutationTimeoutSeconds());
+        }
+        insertBatchSize = extension.getInsertBatchSize();
+        asyncInsert = extension.isAsyncInsert();
+        statementIndex = 0;
+        sessionSettings = new ClickHouseSessionSettings(jdbcTemplate);
+
+        RuntimeException failure = null;
+        try {
+            if (extension.isQueryMetrics()) {
+                queryMetrics = new ClickHouseQueryMetrics(jdbcTemplate, sqlScript);
+                queryMetrics.start();
+            }
+
+            List<Results> results = new ArrayList<>(super.execute(sqlScript, config));
+            flushInsertBatch(sqlScript, config);
+            if (queryMetrics != null && (distributedDdlTracker != null || mutationTracker != null)) {
+                queryMetrics.tagBarrier();
+            }
+            if (distributedDdlTracker != null) {
+                // The end of the script is a migration boundary: nothing may be recorded as applied before the
+                // replicas have caught up.
+                distributedDdlTracker.await();
+            }
+            if (mutationTracker != null) {
+                mutationTracker.await();
+            }
+            if (queryMetrics != null) {
+                results.add(collectQueryMetrics());
+            }
+            return results;
+        } catch (SQLException e) {
+            failure = new FlywaySqlException("Unable to complete ClickHouse script execution", e);
+            throw failure;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            insertBatch = null;
+            restoreSessionSettings(failure);
+        }
+    }
+
+    @Override
+    protected Results executeStatement(JdbcTemplate jdbcTemplate, SqlScript sqlScript, SqlStatement sqlStatement, Configuration config) {
+        statementIndex++;
+        if (insertBatchSize > 1) {
+            if (insertBatch != null && insertBatch.size() < insertBatchSize && insertBatch.add(sqlStatement)) {
+                return new Results();
+            }
+            flushInsertBatch(sqlScript, config);
+            insertBatch = ClickHouseInsertBatch.start(sqlStatement);
+            if (insertBatch != null) {
+                insertBatchIndex = statementIndex;
+                return new Results();
+            }
+        }
+
+        beforeStatement(sqlStatement, sqlStatement.getSql(), statementIndex);
+        Results results;
+        try {
+            results = super.executeStatement(jdbcTemplate, sqlScript, sqlStatement, config);
+        } finally {
+            if (DDL.matcher(ClickHouseParser.stripLeadingComments(sqlStatement.getSql())).find()) {
+                // Even a failed statement may have changed some of the metadata
+                ClickHouseMetadataSnapshot.ddlExecuted(sqlStatement.getSql(), getCurrentDatabase());
+            }
+        }
+        if (distributedDdlTracker != null) {
+            distributedDdlTracker.afterStatement(sqlStatement.getSql());
+        }
+        if (mutationTracker != null) {
+            mutationTracker.afterStatement(sqlStatement.getSql());
+        }
+        return results;
+    }
+
+    private void flushInsertBatch(SqlScript sqlScript, Configuration config) {
+        if (insertBatch == null) {
+            return;
+        }
+        ClickHouseInsertBatch batch = insertBatch;
+        insertBatch = null;
+
+        String sql = batch.toSql(asyncInsert);
+        beforeStatement(batch.getFirstStatement(), sql, insertBatchIndex);
+        LOG.debug("Executing " + batch.size() + " coalesced INSERT statement(s)");
+        Results results = jdbcTemplate.executeStatement(sql);
+        if (results.getException() != null) {
+            handleException(results, sqlScript, batch.getFirstStatement(), config);
+            return;
+        }
+        handleResults(results);
+    }
+
+    /**
+     * @return The current database of the connection, which unqualified names in DDL refer to, or {@code null} if it
+     * cannot be determined. The driver keeps track of it, so this does not query the server.
+     */
+    private String getCurrentDatabase() {
+        try {
+            java.sql.Connection connection = jdbcTemplate.getConnection();
+            String catalog = connection.getCatalog();
+            return catalog != null ? catalog : connection.getSchema();
+        } catch (SQLException e) {
+            LOG.debug("Unable to determine the current database: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void beforeStatement(SqlStatement sqlStatement, String sql, int index) {
+        try {
+            // Tag first, so that the waits and setting lookups run on behalf of the statement are attributed to it
+            if (queryMetrics != null) {
+                queryMetrics.tag(index);
+            }
+            if (mutationTracker != null && ClickHouseMutationTracker.isMutation(sql)
+                    && !ClickHouseSqlStatement.getSettings(sqlStatement).containsKey("mutations_sync")) {
+                // Submit the mutation without waiting for it, the tracker waits at the next barrier instead
+                sessionSettings.apply(ASYNC_MUTATION_SETTINGS);
+            }
+            sessionSettings.apply(ClickHouseSqlStatement.getSettings(sqlStatement));
+            if (distributedDdlTracker != null) {
+                distributedDdlTracker.beforeStatement(sql);
+            }
+            if (mutationTracker != null) {
+                mutationTracker.beforeStatement(sql);
+            }
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to prepare ClickHouse statement execution", e);
+        }
+    }
+
+    private Results collectQueryMetrics() throws SQLException {
+        // The tag must not leak into the metrics query itself
+        queryMetrics.restore();
+        Result metrics = queryMetrics.collect();
+        Results results = new Results();
+        results.addResult(metrics);
+        handleResults(results);
+        return results;
+    }
+
+    /**
+     * Restores everything the script changed on the connection, even if some of it fails to restore.
+     *
+     * @param failure The error the script is failing with, if any. A failure to restore is attached to it rather than
+     *                replacing it.
+     */
+    private void restoreSessionSettings(RuntimeException failure) {
+        RuntimeException restoreFailure = null;
+        if (sessionSettings != null) {
+            restoreFailure = restore(sessionSettings::restore, restoreFailure);
+        }
+        if (queryMetrics != null) {
+            restoreFailure = restore(queryMetrics::restore, restoreFailure);
+        }
+        if (distributedDdlTracker != null) {
+            restoreFailure = restore(distributedDdlTracker::restore, restoreFailure);
+        }
+        sessionSettings = null;
+        mutationTracker = null;
+        queryMetrics = null;
+        distributedDdlTracker = null;
+
+        if (restoreFailure != null) {
+            if (failure == null) {
+                throw restoreFailure;
+            }
+            failure.addSuppressed(restoreFailure);
+        }
+    }
+
+    private static RuntimeException restore(SqlAction action, RuntimeException restoreFailure) {
+        try {
+            action.run();
+            return restoreFailure;
+        } catch (SQLException | RuntimeException e) {
+            RuntimeException error = e instanceof RuntimeException
+                    ? (RuntimeException) e
+                    : new FlywaySqlException("Unable to restore ClickHouse session settings", (SQLException) e);
+            if (restoreFailure == null) {
+                return error;
+            }
+            restoreFailure.addSuppressed(error);
+            return restoreFailure;
+        }
+    }
+
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+}
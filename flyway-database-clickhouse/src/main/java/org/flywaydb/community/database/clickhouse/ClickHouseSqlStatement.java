@@ -0,0 +1,55 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.internal.sqlscript.Delimiter;
+import org.flywaydb.core.internal.sqlscript.ParsedSqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A statement preceded by {@code -- clickhouse:settings} directives in its script.
+ */
+public class ClickHouseSqlStatement extends ParsedSqlStatement {
+    private final Map<String, String> settings;
+
+    public ClickHouseSqlStatement(int pos, int line, int col, String sql, Delimiter delimiter,
+                                  boolean canExecuteInTransaction, boolean batchable, Map<String, String> settings) {
+        super(pos, line, col, sql, delimiter, canExecuteInTransaction, batchable);
+        this.settings = Collections.unmodifiableMap(settings);
+    }
+
+    /**
+     * @return The session settings to apply while executing the statement, as setting names and SQL literals.
+     */
+    public Map<String, String> getSettings() {
+        return settings;
+    }
+
+    /**
+     * @return The session settings of any statement, empty if it has none.
+     */
+    public static Map<String, String> getSettings(SqlStatement statement) {
+        return statement instanceof ClickHouseSqlStatement ? ((ClickHouseSqlStatement) statement).getSettings() : Collections.emptyMap();
+    }
+}
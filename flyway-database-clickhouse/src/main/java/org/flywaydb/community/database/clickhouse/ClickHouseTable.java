@@ -23,12 +23,13 @@ package org.flywaydb.community.database.clickhouse;
 import lombok.CustomLog;
 import org.flywaydb.core.internal.database.base.Table;
 import org.flywaydb.core.internal.jdbc.JdbcTemplate;
-import org.flywaydb.core.internal.util.StringUtils;
 
 import java.sql.SQLException;
 
 @CustomLog
 public class ClickHouseTable extends Table<ClickHouseDatabase, ClickHouseSchema> {
+    private ClickHouseKeeperLock keeperLock;
+
     /**
      * @param jdbcTemplate The JDBC template for communicating with the DB.
      * @param database The database-specific support.
@@ -41,20 +42,36 @@ public class ClickHouseTable extends Table<ClickHouseDatabase, ClickHouseSchema>
 
     @Override
     protected void doDrop() throws SQLException {
-        String clusterName = database.getClusterName();
-
-        jdbcTemplate.executeStatement("DROP TABLE " + this + (StringUtils.hasText(clusterName) ? (" ON CLUSTER " + clusterName) : ""));
+        jdbcTemplate.executeStatement("DROP TABLE " + this + database.getOnClusterClause(schema.getName()));
+        database.getMetadataSnapshot().tableDropped(schema.getName(), name);
     }
 
     @Override
     protected boolean doExists() throws SQLException {
-        ClickHouseConnection systemConnection = database.getSystemConnection();
-        int count = systemConnection.getJdbcTemplate().queryForInt("SELECT COUNT() FROM system.tables WHERE database = ? AND name = ?", schema.getName(), name);
-        return count > 0;
+        return database.getMetadataSnapshot().tableExists(schema.getName(), name);
     }
 
     @Override
     protected void doLock() throws SQLException {
-        LOG.debug("Unable to lock " + this + " as ClickHouse does not support locking. No concurrent migration supported.");
+        if (!database.isDistributedLock()) {
+            LOG.debug("Unable to lock " + this + " as ClickHouse does not support locking. No concurrent migration supported.");
+            return;
+        }
+        if (lockDepth > 0) {
+            // Lock has already been taken
+            return;
+        }
+        keeperLock = new ClickHouseKeeperLock(database, this);
+        keeperLock.acquire();
+    }
+
+    @Override
+    protected void doUnlock() throws SQLException {
+        // Only release the lease when leaving the outermost lock
+        if (keeperLock == null || lockDepth > 1) {
+            return;
+        }
+        keeperLock.release();
+        keeperLock = null;
     }
 }
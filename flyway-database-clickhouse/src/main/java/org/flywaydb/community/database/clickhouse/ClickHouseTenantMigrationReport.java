@@ -0,0 +1,76 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.output.MigrateResult;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The outcome of a {@link ClickHouseTenantMigrator} run, per database.
+ */
+public class ClickHouseTenantMigrationReport {
+    private final Map<String, MigrateResult> succeeded = new TreeMap<>();
+    private final Map<String, RuntimeException> failed = new TreeMap<>();
+
+    synchronized void succeeded(String database, MigrateResult result) {
+        succeeded.put(database, result);
+    }
+
+    synchronized void failed(String database, RuntimeException exception) {
+        failed.put(database, exception);
+    }
+
+    /**
+     * @return The result of every database which was migrated successfully, keyed by database name.
+     */
+    public synchronized Map<String, MigrateResult> getSucceeded() {
+        return Collections.unmodifiableMap(new TreeMap<>(succeeded));
+    }
+
+    /**
+     * @return The exception of every database which failed to migrate, keyed by database name.
+     */
+    public synchronized Map<String, RuntimeException> getFailed() {
+        return Collections.unmodifiableMap(new TreeMap<>(failed));
+    }
+
+    public synchronized boolean isSuccess() {
+        return failed.isEmpty();
+    }
+
+    public synchronized String getSummary() {
+        int migrations = succeeded.values().stream().mapToInt(result -> result.migrationsExecuted).sum();
+        StringBuilder summary = new StringBuilder("Migrated " + succeeded.size() + " ClickHouse database(s) ("
+                + migrations + " migration(s) applied), " + failed.size() + " failed");
+        for (Map.Entry<String, RuntimeException> failure : failed.entrySet()) {
+            summary.append("\n  ").append(failure.getKey()).append(": ").append(failure.getValue().getMessage());
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
@@ -0,0 +1,145 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import lombok.CustomLog;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Applies the same set of migrations to many ClickHouse databases (e.g. one per tenant) concurrently.
+ * <p>
+ * Every database is migrated by its own {@link Flyway} instance, built from the base configuration with the
+ * database as its only schema. All of them share a single connection to the system tables and a single
+ * {@link ClickHouseMetadataSnapshot}, which is loaded for every database with one query up front. A failing database
+ * does not abort the others; failures are collected in the returned {@link ClickHouseTenantMigrationReport}.
+ */
+@CustomLog
+public class ClickHouseTenantMigrator {
+    private final Configuration configuration;
+    private final int parallelism;
+
+    /**
+     * @param configuration The configuration shared by all databases. Its schemas are replaced for each database.
+     * @param parallelism The maximum number of databases migrated at the same time.
+     */
+    public ClickHouseTenantMigrator(Configuration configuration, int parallelism) {
+        if (parallelism < 1) {
+            throw new FlywayException("Invalid parallelism: " + parallelism + " (must be a positive integer)");
+        }
+        this.configuration = configuration;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Migrates all the given databases.
+     *
+     * @param databases The names of the databases to migrate.
+     * @return The outcome for each database.
+     */
+    public ClickHouseTenantMigrationReport migrate(Collection<String> databases) {
+        Set<String> tenants = new LinkedHashSet<>(databases);
+        ClickHouseTenantMigrationReport report = new ClickHouseTenantMigrationReport();
+        if (tenants.isEmpty()) {
+            return report;
+        }
+        if (configuration.getDataSource() == null) {
+            throw new FlywayException("Unable to migrate ClickHouse databases: no url or data source configured");
+        }
+
+        try (Connection systemConnection = configuration.getDataSource().getConnection()) {
+            useSystemDatabase(systemConnection);
+            JdbcTemplate systemJdbcTemplate = new JdbcTemplate(systemConnection, new ClickHouseDatabaseType());
+            ClickHouseMetadataSnapshot snapshot = new ClickHouseMetadataSnapshot(() -> systemJdbcTemplate, tenants);
+            snapshot.preload(tenants);
+
+            LOG.info("Migrating " + tenants.size() + " ClickHouse database(s) with a parallelism of " + parallelism);
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, tenants.size()));
+            try {
+                List<Future<?>> futures = new ArrayList<>();
+                for (String tenant : tenants) {
+                    futures.add(executor.submit(() -> migrate(tenant, systemConnection, snapshot, report)));
+                }
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new FlywayException("Interrupted while migrating ClickHouse databases", e);
+            } catch (ExecutionException e) {
+                throw new FlywayException("Unexpected error while migrating ClickHouse databases", e.getCause());
+            } finally {
+                executor.shutdownNow();
+            }
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to open the shared ClickHouse system connection", e);
+        }
+
+        LOG.info(report.getSummary());
+        return report;
+    }
+
+    private void migrate(String tenant, Connection systemConnection, ClickHouseMetadataSnapshot snapshot,
+                         ClickHouseTenantMigrationReport report) {
+        ClickHouseDatabase.shareSystemConnection(systemConnection);
+        ClickHouseMetadataSnapshot.share(snapshot);
+        try {
+            Flyway flyway = Flyway.configure(configuration.getClassLoader())
+                    .configuration(configuration)
+                    .schemas(tenant)
+                    .defaultSchema(tenant)
+                    .load();
+            MigrateResult result = flyway.migrate();
+            report.succeeded(tenant, result);
+        } catch (RuntimeException e) {
+            LOG.warn("Migration of ClickHouse database " + tenant + " failed: " + e.getMessage());
+            report.failed(tenant, e);
+        } finally {
+            ClickHouseMetadataSnapshot.unshare();
+            ClickHouseDatabase.unshareSystemConnection();
+        }
+    }
+
+    private static void useSystemDatabase(Connection connection) throws SQLException {
+        // See ClickHouseDatabase.getSystemConnection(): the database of the URL may not exist yet
+        if ("database".equals(connection.getMetaData().getCatalogTerm())) {
+            connection.setCatalog("system");
+        } else {
+            connection.setSchema("system");
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseClusterDriftCheckTest {
+    private static final String FINGERPRINTS = "clusterAllReplicas";
+
+    @Test
+    void reports_replicas_differing_from_the_majority() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse().answer(FINGERPRINTS, List.of(
+                fingerprint("a", "", "0"), fingerprint("b", "", "0"), fingerprint("c", "", "0"),
+                fingerprint("a", "tenant", "42"), fingerprint("b", "tenant", "42"), fingerprint("c", "tenant", "7")));
+
+        // when
+        List<ClickHouseReplicaDrift> drifts = check(clickHouse, List.of("tenant"));
+
+        // then
+        assertThat(drifts).singleElement().satisfies(drift -> {
+            assertThat(drift.getDatabase()).isEqualTo("tenant");
+            assertThat(drift.getHost()).isEqualTo("c");
+            assertThat(drift.getFingerprint()).isEqualTo("7");
+            assertThat(drift.getMajorityFingerprint()).isEqualTo("42");
+            assertThat(drift).hasToString("c: database tenant has fingerprint 7 instead of 42");
+        });
+    }
+
+    @Test
+    void tells_a_missing_database_from_an_empty_one() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse().answer(FINGERPRINTS, List.of(
+                fingerprint("a", "", "0"), fingerprint("b", "", "0"), fingerprint("c", "", "0"),
+                fingerprint("a", "empty", "0"), fingerprint("b", "empty", "0"), fingerprint("c", "empty", "0"),
+                fingerprint("a", "tenant", "0"), fingerprint("b", "tenant", "0")));
+
+        // when
+        List<ClickHouseReplicaDrift> drifts = check(clickHouse, List.of("empty", "tenant"));
+
+        // then
+        assertThat(drifts).singleElement().hasToString("c: database tenant is missing");
+        assertThat(drifts.get(0).getFingerprint()).isNull();
+    }
+
+    @Test
+    void finds_every_replica_and_database_in_a_single_query() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse().answer(FINGERPRINTS, List.of(fingerprint("a", "", "0")));
+
+        // when
+        List<ClickHouseReplicaDrift> drifts = check(clickHouse, List.of("first", "second"));
+
+        // then
+        assertThat(drifts).isEmpty();
+        assertThat(clickHouse.getStatements()).singleElement().asString()
+                .contains("clusterAllReplicas(?, system.one)", "clusterAllReplicas(?, system.databases) WHERE name IN (?, ?)",
+                        "clusterAllReplicas(?, system.tables)", "clusterAllReplicas(?, system.columns)");
+        assertThat(clickHouse.getParameters(FINGERPRINTS)).containsExactly(
+                List.of("main", "main", "first", "second", "main", "first", "second", "main", "first", "second"));
+    }
+
+    @Test
+    void does_not_query_without_databases() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse();
+
+        // when
+        List<ClickHouseReplicaDrift> drifts = check(clickHouse, List.of());
+
+        // then
+        assertThat(drifts).isEmpty();
+        assertThat(clickHouse.getStatements()).isEmpty();
+    }
+
+    @Test
+    void picks_the_most_common_fingerprint() {
+        assertThat(ClickHouseClusterDriftCheck.majority(List.of("7", "42", "42"))).isEqualTo("42");
+        assertThat(ClickHouseClusterDriftCheck.majority(List.of("42", "7", "7", "1"))).isEqualTo("7");
+        assertThat(ClickHouseClusterDriftCheck.majority(List.of("7"))).isEqualTo("7");
+        assertThat(ClickHouseClusterDriftCheck.majority(List.of())).isNull();
+    }
+
+    @Test
+    void breaks_ties_by_the_natural_order_of_the_fingerprints() {
+        assertThat(ClickHouseClusterDriftCheck.majority(List.of("9", "3"))).isEqualTo("3");
+        assertThat(ClickHouseClusterDriftCheck.majority(List.of("b", "a", "b", "a"))).isEqualTo("a");
+    }
+
+    private static List<ClickHouseReplicaDrift> check(StubClickHouse clickHouse, List<String> databases) throws SQLException {
+        return new ClickHouseClusterDriftCheck(clickHouse.jdbcTemplate(), "main").check(databases);
+    }
+
+    private static Map<String, String> fingerprint(String host, String database, String fingerprint) {
+        return StubClickHouse.row("host", host, "database", database, "fingerprint", fingerprint);
+    }
+}
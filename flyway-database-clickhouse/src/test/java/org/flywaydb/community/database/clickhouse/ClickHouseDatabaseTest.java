@@ -0,0 +1,195 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.internal.database.base.Table;
+import org.flywaydb.core.internal.util.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseDatabaseTest {
+    private static final String HISTORY_TABLE = "flyway_schema_history";
+    private static final String HISTORY_COLUMNS = "\"installed_rank\", \"version\", \"description\", \"type\", \"script\", "
+            + "\"checksum\", \"installed_on\", \"installed_by\", \"execution_time\", \"success\"";
+
+    @Test
+    void creates_a_versioned_schema_history_table() {
+        // given
+        String schema = uniqueName();
+        ClickHouseDatabase database = database(schema, "Atomic", null, Map.of("versionedSchemaHistory", "true"));
+
+        // when
+        String script = database.getRawCreateScript(historyTable(database, schema), false);
+
+        // then
+        assertThat(script).startsWith("CREATE TABLE IF NOT EXISTS \"" + schema + "\".\"" + HISTORY_TABLE + "\"(")
+                .contains("    success Bool,    row_version UInt64 DEFAULT toUnixTimestamp64Nano(now64(9)),    is_deleted UInt8 DEFAULT 0)")
+                .endsWith(" ENGINE = ReplacingMergeTree(row_version, is_deleted) ORDER BY (installed_rank);");
+    }
+
+    @Test
+    void creates_a_replicated_versioned_schema_history_table_on_a_cluster() {
+        // given
+        String schema = uniqueName();
+        ClickHouseDatabase database = database(schema, "Atomic", null,
+                Map.of("versionedSchemaHistory", "true", "clusterName", "main"));
+
+        // when
+        String script = database.getRawCreateScript(historyTable(database, schema), false);
+
+        // then
+        assertThat(script).contains("\"" + HISTORY_TABLE + "\" ON CLUSTER main(")
+                .endsWith(" ENGINE = ReplicatedReplacingMergeTree('/clickhouse/tables/{shard}/{database}/{table}', '{replica}', "
+                        + "row_version, is_deleted) ORDER BY (installed_rank);");
+    }
+
+    @Test
+    void lets_a_replicated_database_replicate_the_versioned_schema_history_table() {
+        // given
+        String schema = uniqueName();
+        ClickHouseDatabase database = database(schema, "Replicated", null,
+                Map.of("versionedSchemaHistory", "true", "clusterName", "main"));
+
+        // when
+        String script = database.getRawCreateScript(historyTable(database, schema), false);
+
+        // then
+        assertThat(script).doesNotContain("ON CLUSTER")
+                .endsWith(" ENGINE = ReplicatedReplacingMergeTree(row_version, is_deleted) ORDER BY (installed_rank);");
+    }
+
+    @Test
+    void creates_a_plain_schema_history_table_by_default() {
+        // given
+        String schema = uniqueName();
+        ClickHouseDatabase database = database(schema, "Atomic", null, Map.of());
+
+        // when
+        String script = database.getRawCreateScript(historyTable(database, schema), false);
+
+        // then
+        assertThat(script).doesNotContain("row_version", "is_deleted")
+                .endsWith("    success Bool) ENGINE = MergeTree PRIMARY KEY (script);");
+    }
+
+    @Test
+    void selects_the_latest_version_of_every_row() {
+        // given
+        String schema = uniqueName();
+        ClickHouseDatabase database = database(schema, "Atomic", "ReplacingMergeTree", Map.of("versionedSchemaHistory", "true"));
+        Table<?, ?> table = historyTable(database, schema);
+
+        // when
+        String select = database.getSelectStatement(table);
+
+        // then
+        assertThat(select).isEqualTo("SELECT " + HISTORY_COLUMNS + " FROM " + table + " FINAL"
+                + " WHERE \"installed_rank\" > ? AND \"is_deleted\" = 0 ORDER BY \"installed_rank\"");
+    }
+
+    @Test
+    void updates_a_row_by_inserting_a_new_version_of_it() {
+        // given
+        String schema = uniqueName();
+        ClickHouseDatabase database = database(schema, "Atomic", "ReplacingMergeTree", Map.of("versionedSchemaHistory", "true"));
+        Table<?, ?> table = historyTable(database, schema);
+
+        // when
+        String update = database.getUpdateStatement(table);
+
+        // then
+        assertThat(update).isEqualTo("INSERT INTO " + table + " (" + HISTORY_COLUMNS + ", \"row_version\", \"is_deleted\")"
+                + " SELECT \"installed_rank\", \"version\", ?, ?, \"script\", ?, \"installed_on\", \"installed_by\", "
+                + "\"execution_time\", \"success\", toUnixTimestamp64Nano(now64(9)), 0"
+                + " FROM " + table + " FINAL WHERE \"installed_rank\" = ? AND \"is_deleted\" = 0");
+    }
+
+    @Test
+    void deletes_failed_rows_by_inserting_tombstones() {
+        // given
+        String schema = uniqueName();
+        ClickHouseDatabase database = database(schema, "Atomic", "ReplacingMergeTree", Map.of("versionedSchemaHistory", "true"));
+        Table<?, ?> table = historyTable(database, schema);
+
+        // when
+        Pair<String, Object> byVersion = database.getDeleteStatement(table, true, "1.2");
+        Pair<String, Object> byDescription = database.getDeleteStatement(table, false, "repeatable");
+
+        // then
+        assertThat(byVersion.getLeft()).isEqualTo("INSERT INTO " + table + " (" + HISTORY_COLUMNS + ", \"row_version\", \"is_deleted\")"
+                + " SELECT " + HISTORY_COLUMNS + ", toUnixTimestamp64Nano(now64(9)), 1"
+                + " FROM " + table + " FINAL WHERE \"success\" = 0 AND \"version\" = ? AND \"is_deleted\" = 0");
+        assertThat(byVersion.getRight()).isEqualTo("1.2");
+        assertThat(byDescription.getLeft()).contains(" AND \"description\" = ? ");
+        assertThat(byDescription.getRight()).isEqualTo("repeatable");
+    }
+
+    @Test
+    void keeps_the_layout_of_an_existing_schema_history_table() {
+        // given
+        String plainSchema = uniqueName();
+        String versionedSchema = uniqueName();
+        ClickHouseDatabase plain = database(plainSchema, "Atomic", "MergeTree", Map.of("versionedSchemaHistory", "true"));
+        ClickHouseDatabase versioned = database(versionedSchema, "Atomic", "ReplicatedReplacingMergeTree", Map.of());
+
+        // when
+        String plainSelect = plain.getSelectStatement(historyTable(plain, plainSchema));
+        String versionedSelect = versioned.getSelectStatement(historyTable(versioned, versionedSchema));
+
+        // then
+        assertThat(plainSelect).doesNotContain("FINAL", "is_deleted");
+        assertThat(versionedSelect).contains(" FINAL WHERE ");
+        assertThat(plain.getUpdateStatement(historyTable(plain, plainSchema))).doesNotContain("INSERT");
+    }
+
+    /**
+     * @param databaseEngine     The engine of the schema.
+     * @param historyTableEngine The engine of the existing schema history table, {@code null} if there is none yet.
+     * @param settings           The {@code flyway.clickhouse.*} settings, without their prefix.
+     */
+    private static ClickHouseDatabase database(String schema, String databaseEngine, String historyTableEngine,
+                                               Map<String, String> settings) {
+        StubClickHouse clickHouse = new StubClickHouse().answer("FROM system.databases", params -> {
+            if (historyTableEngine == null) {
+                return List.of(StubClickHouse.row("name", schema, "table", "", "engine", databaseEngine));
+            }
+            return List.of(StubClickHouse.row("name", schema, "table", "", "engine", databaseEngine),
+                    StubClickHouse.row("name", schema, "table", HISTORY_TABLE, "engine", historyTableEngine));
+        });
+        return clickHouse.database(schema, settings);
+    }
+
+    private static Table<?, ?> historyTable(ClickHouseDatabase database, String schema) {
+        return database.getMainConnection().getSchema(schema).getTable(HISTORY_TABLE);
+    }
+
+    /**
+     * DDL generations are shared by the whole process, so every test works on a schema of its own.
+     */
+    private static String uniqueName() {
+        return "schema_" + UUID.randomUUID().toString().replace("-", "");
+    }
+}
@@ -0,0 +1,161 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickHouseDistributedDdlTrackerTest {
+    private static final String QUEUE = "FROM system.distributed_ddl_queue";
+    private static final String CREATE_EVENTS = "CREATE TABLE `db`.`events` ON CLUSTER main (id UInt64) ENGINE = MergeTree ORDER BY id";
+    private static final String CREATE_USERS = "CREATE TABLE db.users ON CLUSTER main (id UInt64) ENGINE = MergeTree ORDER BY id";
+
+    @Test
+    void submits_distributed_ddl_without_waiting_for_the_replicas() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse();
+        ClickHouseDistributedDdlTracker tracker = tracker(clickHouse, 60);
+
+        // when
+        submit(tracker, CREATE_EVENTS);
+        submit(tracker, CREATE_USERS);
+        tracker.restore();
+
+        // then
+        assertThat(clickHouse.getStatements()).containsExactly(
+                "SELECT getSetting('distributed_ddl_output_mode') AS output_mode, getSetting('distributed_ddl_task_timeout') AS task_timeout",
+                "SET distributed_ddl_output_mode = 'none', distributed_ddl_task_timeout = 0",
+                "SELECT toUnixTimestamp(now())",
+                "SET distributed_ddl_output_mode = 'throw', distributed_ddl_task_timeout = 180");
+    }
+
+    @Test
+    void waits_only_before_statements_referencing_pending_objects() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(QUEUE, List.of(task("1", "a", "Finished"), task("1", "b", "Finished")));
+        ClickHouseDistributedDdlTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, CREATE_EVENTS);
+
+        // when
+        tracker.beforeStatement("INSERT INTO events_2 VALUES (1)");
+        tracker.beforeStatement("SELECT * FROM other_db.other_events");
+        int pollsBeforeReference = clickHouse.count(QUEUE);
+        tracker.beforeStatement("INSERT INTO db.Events VALUES (1)");
+
+        // then
+        assertThat(pollsBeforeReference).isZero();
+        assertThat(clickHouse.count(QUEUE)).isEqualTo(1);
+        assertThat(clickHouse.getStatements()).filteredOn(statement -> statement.contains(QUEUE))
+                .singleElement().asString().contains("query_create_time >= toDateTime(1700000000)");
+        assertThat(clickHouse.getParameters(QUEUE)).containsExactly(List.of("main"));
+    }
+
+    @Test
+    void waits_until_every_submitted_statement_has_reached_the_queue() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(QUEUE,
+                List.of(),
+                List.of(task("1", "a", "Finished"), task("1", "b", "Finished")),
+                List.of(task("1", "a", "Finished"), task("1", "b", "Finished"), task("2", "a", "Active"), task("2", "b", "Finished")),
+                List.of(task("1", "a", "Finished"), task("1", "b", "Finished"), task("2", "a", "Finished"), task("2", "b", "Finished")));
+        ClickHouseDistributedDdlTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, CREATE_EVENTS);
+        submit(tracker, CREATE_USERS);
+
+        // when
+        tracker.await();
+        tracker.await();
+
+        // then
+        assertThat(clickHouse.count(QUEUE)).isEqualTo(4);
+    }
+
+    @Test
+    void forgets_the_pending_objects_once_finished() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(QUEUE, List.of(task("1", "a", "Finished")));
+        ClickHouseDistributedDdlTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, CREATE_EVENTS);
+        tracker.await();
+
+        // when
+        tracker.beforeStatement("INSERT INTO events VALUES (1)");
+
+        // then
+        assertThat(clickHouse.count(QUEUE)).isEqualTo(1);
+    }
+
+    @Test
+    void fails_with_the_errors_reported_by_the_replicas() throws SQLException {
+        // given
+        Map<String, String> failed = task("1", "b", "Finished");
+        failed.put("exception_code", "57");
+        failed.put("exception_text", "Table db.events already exists");
+        StubClickHouse clickHouse = clickHouse().answer(QUEUE, List.of(task("1", "a", "Finished"), failed));
+        ClickHouseDistributedDdlTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, CREATE_EVENTS);
+
+        // when / then
+        assertThatThrownBy(tracker::await)
+                .isInstanceOf(FlywayException.class)
+                .hasMessage("Distributed DDL failed on cluster main:\nb:9000 (query-0000000001): Table db.events already exists");
+    }
+
+    @Test
+    void times_out_when_the_replicas_do_not_finish() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(QUEUE, List.of(task("1", "a", "Finished"), task("1", "b", "Active")));
+        ClickHouseDistributedDdlTracker tracker = tracker(clickHouse, 0);
+        submit(tracker, CREATE_EVENTS);
+
+        // when / then
+        assertThatThrownBy(tracker::await)
+                .isInstanceOf(FlywayException.class)
+                .hasMessage("Timed out after 0s waiting for distributed DDL on cluster main: a:9000 1/1, b:9000 0/1");
+    }
+
+    private static StubClickHouse clickHouse() {
+        return new StubClickHouse()
+                .answer("SELECT getSetting(", List.of(StubClickHouse.row("output_mode", "throw", "task_timeout", "180")))
+                .answer("SELECT toUnixTimestamp(now())", List.of(StubClickHouse.row("now", "1700000000")));
+    }
+
+    private static ClickHouseDistributedDdlTracker tracker(StubClickHouse clickHouse, int timeoutSeconds) {
+        return new ClickHouseDistributedDdlTracker(clickHouse.jdbcTemplate(), "main", timeoutSeconds);
+    }
+
+    private static void submit(ClickHouseDistributedDdlTracker tracker, String sql) throws SQLException {
+        tracker.beforeStatement(sql);
+        tracker.afterStatement(sql);
+    }
+
+    private static Map<String, String> task(String entry, String host, String status) {
+        return StubClickHouse.row("entry", "query-000000000" + entry, "host", host, "port", "9000", "status", status,
+                "exception_code", "0", "exception_text", "");
+    }
+}
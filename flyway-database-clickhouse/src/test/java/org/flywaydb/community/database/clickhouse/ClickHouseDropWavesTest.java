@@ -0,0 +1,143 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickHouseDropWavesTest {
+
+    @Test
+    void drops_dependents_before_their_dependencies() {
+        // given
+        Map<String, Set<String>> dropGraph = Map.of(
+                "events", Set.of("events_mv", "events_view"),
+                "events_mv", Set.of(),
+                "events_view", Set.of("events_view_2"),
+                "events_view_2", Set.of(),
+                "other_events", Set.of());
+
+        // when
+        List<List<String>> waves = ClickHouseDropWaves.compute(dropGraph);
+
+        // then
+        assertThat(waves).containsExactly(
+                List.of("events_mv", "events_view_2", "other_events"),
+                List.of("events_view"),
+                List.of("events"));
+    }
+
+    @Test
+    void ignores_dependents_outside_the_graph() {
+        assertThat(ClickHouseDropWaves.compute(Map.of("events", Set.of("other_db_view"))))
+                .containsExactly(List.of("events"));
+        assertThat(ClickHouseDropWaves.compute(Map.of())).isEmpty();
+    }
+
+    @Test
+    void drops_a_cycle_in_alphabetical_order() {
+        // given
+        Map<String, Set<String>> dropGraph = Map.of(
+                "b", Set.of("a"),
+                "a", Set.of("b"),
+                "c", Set.of("a"),
+                "d", Set.of());
+
+        // when
+        List<List<String>> waves = ClickHouseDropWaves.compute(dropGraph);
+
+        // then
+        assertThat(waves).containsExactly(List.of("d"), List.of("a", "b", "c"));
+    }
+
+    @Test
+    void drops_sequentially_on_the_given_connection_without_parallelism() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse();
+        JdbcTemplate jdbcTemplate = clickHouse.jdbcTemplate();
+        List<List<String>> waves = List.of(List.of("a", "b"), List.of("c"));
+
+        // when
+        ClickHouseDropWaves.drop(waves, 1, jdbcTemplate, () -> {
+            throw new AssertionError("No connection must be opened");
+        }, (template, item) -> template.execute("DROP TABLE " + item));
+
+        // then
+        assertThat(clickHouse.getStatements()).containsExactly("DROP TABLE a", "DROP TABLE b", "DROP TABLE c");
+        assertThat(clickHouse.getOpenedConnections()).isEqualTo(1);
+    }
+
+    @Test
+    void drops_a_wave_concurrently_and_finishes_it_before_the_next() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse();
+        ClickHouseDatabase database = clickHouse.database("db", Map.of());
+        int openedConnections = clickHouse.getOpenedConnections();
+        List<String> dropped = Collections.synchronizedList(new ArrayList<>());
+        List<List<String>> waves = List.of(List.of("a", "b", "c", "d"), List.of("e"));
+
+        // when
+        ClickHouseDropWaves.drop(waves, 2, null, database::openConnection, (template, item) -> {
+            template.execute("DROP TABLE " + item);
+            dropped.add(item);
+        });
+
+        // then
+        assertThat(dropped).hasSize(5);
+        assertThat(dropped.subList(0, 4)).containsExactlyInAnyOrder("a", "b", "c", "d");
+        assertThat(dropped.get(4)).isEqualTo("e");
+        assertThat(clickHouse.getOpenedConnections() - openedConnections).isEqualTo(2);
+    }
+
+    @Test
+    void reports_the_first_failure_of_a_wave_and_stops() {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse().fail("DROP TABLE b", new SQLException("Table is locked"));
+        ClickHouseDatabase database = clickHouse.database("db", Map.of());
+        List<List<String>> waves = List.of(List.of("a", "b", "c"), List.of("d"));
+
+        // when / then
+        assertThatThrownBy(() -> ClickHouseDropWaves.drop(waves, 3, null, database::openConnection,
+                (template, item) -> template.execute("DROP TABLE " + item)))
+                .isInstanceOf(SQLException.class)
+                .hasMessage("Table is locked");
+        assertThat(clickHouse.count("DROP TABLE d")).isZero();
+    }
+
+    @Test
+    void resolves_names_local_to_the_schema() {
+        assertThat(ClickHouseDropWaves.localName("events", "db")).isEqualTo("events");
+        assertThat(ClickHouseDropWaves.localName("db.events", "db")).isEqualTo("events");
+        assertThat(ClickHouseDropWaves.localName("`my.db`.`my.events`", "my.db")).isEqualTo("my.events");
+        assertThat(ClickHouseDropWaves.localName("other_db.events", "db")).isNull();
+        assertThat(ClickHouseDropWaves.localName("a.b.c", "a")).isNull();
+    }
+}
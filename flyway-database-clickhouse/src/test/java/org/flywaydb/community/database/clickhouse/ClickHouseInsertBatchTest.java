@@ -0,0 +1,124 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseInsertBatchTest {
+
+    @Test
+    void coalesces_inserts_into_the_same_table_and_columns() {
+        // given
+        List<SqlStatement> statements = parse("INSERT INTO db.events (id, name) VALUES (1, 'a'), (2, 'b');\n"
+                + "insert into db.events (id,  name)\nvalues\n(3, 'c')\n;\n"
+                + "-- the last one\nINSERT INTO TABLE db.events (id, name) VALUES (4, 'd');");
+
+        // when
+        ClickHouseInsertBatch batch = ClickHouseInsertBatch.start(statements.get(0));
+
+        // then
+        assertThat(batch).isNotNull();
+        assertThat(batch.add(statements.get(1))).isTrue();
+        assertThat(batch.add(statements.get(2))).isTrue();
+        assertThat(batch.size()).isEqualTo(3);
+        assertThat(batch.getFirstStatement()).isSameAs(statements.get(0));
+        assertThat(batch.toSql(false))
+                .isEqualTo("INSERT INTO db.events (id, name) VALUES (1, 'a'), (2, 'b'), (3, 'c'), (4, 'd')");
+    }
+
+    @Test
+    void keeps_values_spanning_lines_and_containing_parentheses() {
+        // given
+        List<SqlStatement> statements = parse("INSERT INTO `my db`.\"events\" VALUES (1, 'a)\n(b', tuple(1, 2));\n"
+                + "INSERT INTO `my db`.\"events\" VALUES (2, ')', [(1, 2)]);");
+
+        // when
+        ClickHouseInsertBatch batch = ClickHouseInsertBatch.start(statements.get(0));
+        boolean added = batch.add(statements.get(1));
+
+        // then
+        assertThat(added).isTrue();
+        assertThat(batch.toSql(true)).isEqualTo("INSERT INTO `my db`.\"events\" SETTINGS async_insert = 1, wait_for_async_insert = 1"
+                + " VALUES (1, 'a)\n(b', tuple(1, 2)), (2, ')', [(1, 2)])");
+    }
+
+    @Test
+    void does_not_coalesce_inserts_into_other_tables_or_columns() {
+        // given
+        List<SqlStatement> statements = parse("INSERT INTO events (id) VALUES (1);\n"
+                + "INSERT INTO other_events (id) VALUES (2);\n"
+                + "INSERT INTO events (name) VALUES ('b');\n"
+                + "INSERT INTO events VALUES (3);");
+
+        // when
+        ClickHouseInsertBatch batch = ClickHouseInsertBatch.start(statements.get(0));
+
+        // then
+        assertThat(batch.add(statements.get(1))).isFalse();
+        assertThat(batch.add(statements.get(2))).isFalse();
+        assertThat(batch.add(statements.get(3))).isFalse();
+        assertThat(batch.size()).isEqualTo(1);
+    }
+
+    @Test
+    void does_not_coalesce_inserts_with_other_settings() {
+        // given
+        List<SqlStatement> statements = parse("INSERT INTO events VALUES (1);\n"
+                + "-- clickhouse:settings insert_quorum=2\n"
+                + "INSERT INTO events VALUES (2);\n"
+                + "INSERT INTO events VALUES (3);");
+
+        // when
+        ClickHouseInsertBatch batch = ClickHouseInsertBatch.start(statements.get(1));
+
+        // then
+        assertThat(ClickHouseInsertBatch.start(statements.get(0)).add(statements.get(1))).isFalse();
+        assertThat(batch.add(statements.get(2))).isTrue();
+    }
+
+    @Test
+    void does_not_batch_other_statements() {
+        assertThat(ClickHouseInsertBatch.start(parse("INSERT INTO events SELECT * FROM other_events;").get(0))).isNull();
+        assertThat(ClickHouseInsertBatch.start(parse("INSERT INTO events FORMAT CSV\n1,a\n;").get(0))).isNull();
+        assertThat(ClickHouseInsertBatch.start(parse("INSERT INTO events SETTINGS async_insert=1 VALUES (1);").get(0))).isNull();
+        assertThat(ClickHouseInsertBatch.start(parse("INSERT INTO events VALUES (1) -- trailing comment;").get(0))).isNull();
+        assertThat(ClickHouseInsertBatch.start(parse("ALTER TABLE events DELETE WHERE 1;").get(0))).isNull();
+    }
+
+    private static List<SqlStatement> parse(String sql) {
+        ClickHouseParser parser = new ClickHouseParser(new FluentConfiguration(), new ParsingContext(), 3);
+        List<SqlStatement> statements = new ArrayList<>();
+        try (SqlStatementIterator iterator = parser.parse(new StringResource(sql))) {
+            iterator.forEachRemaining(statements::add);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,193 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickHouseKeeperLockTest {
+    private static final String INSERT = "SETTINGS keeper_map_strict_mode = 1";
+    private static final String EXPIRED_OWNER = "SELECT owner FROM";
+    private static final String TAKE_OVER = "DELETE WHERE lock_name = ? AND owner = ? AND expires_at < now64(3)";
+    private static final String RENEW = "UPDATE expires_at";
+    private static final String RENEWED = "SELECT count() FROM";
+    private static final String RELEASE = "DELETE WHERE lock_name = ? AND owner = ?";
+    private static final String LOCK_NAME = "\"db\".\"flyway_schema_history\"";
+
+    @Test
+    void acquires_the_lease_with_a_strict_insert_and_releases_it() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse();
+        ClickHouseKeeperLock lock = lock(clickHouse, Map.of());
+
+        // when
+        lock.acquire();
+        lock.release();
+
+        // then
+        assertThat(clickHouse.count("CREATE TABLE IF NOT EXISTS \"db\".\"flyway_schema_history_lock\"")).isEqualTo(1);
+        assertThat(clickHouse.getStatements()).filteredOn(statement -> statement.contains(INSERT))
+                .singleElement().asString().contains("toIntervalMillisecond(1000)");
+        List<Object> acquired = clickHouse.getParameters(INSERT).get(0);
+        assertThat(acquired.get(0)).isEqualTo(LOCK_NAME);
+        assertThat(clickHouse.getParameters(RELEASE)).containsExactly(acquired);
+        assertThat(lock.isLeaseLost()).isFalse();
+    }
+
+    @Test
+    void takes_over_an_expired_lease() throws SQLException {
+        // given
+        AtomicBoolean held = new AtomicBoolean(true);
+        StubClickHouse clickHouse = new StubClickHouse()
+                .answer(INSERT, params -> {
+                    if (held.getAndSet(false)) {
+                        throw duplicateKey();
+                    }
+                    return null;
+                })
+                .answer(EXPIRED_OWNER, List.of(StubClickHouse.row("owner", "crashed-instance")));
+        ClickHouseKeeperLock lock = lock(clickHouse, Map.of());
+
+        // when
+        lock.acquire();
+
+        // then
+        assertThat(clickHouse.count(INSERT)).isEqualTo(2);
+        assertThat(clickHouse.getParameters(TAKE_OVER)).containsExactly(List.of(LOCK_NAME, "crashed-instance"));
+        lock.release();
+    }
+
+    @Test
+    void waits_for_a_lease_held_by_another_instance() {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse()
+                .answer(INSERT, params -> {
+                    throw duplicateKey();
+                })
+                .answer(EXPIRED_OWNER, List.of());
+        ClickHouseKeeperLock lock = lock(clickHouse, Map.of("flyway.lockRetryCount", "2"));
+
+        // when / then
+        assertThatThrownBy(lock::acquire)
+                .isInstanceOf(FlywayException.class)
+                .hasMessageContaining("Number of retries exceeded");
+        assertThat(clickHouse.count(INSERT)).isEqualTo(3);
+        assertThat(clickHouse.count(TAKE_OVER)).isZero();
+    }
+
+    @Test
+    void fails_on_other_errors_while_acquiring() {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse()
+                .fail(INSERT, new SQLException("Code: 999. Coordination::Exception: Connection loss", "HY000", 999));
+        ClickHouseKeeperLock lock = lock(clickHouse, Map.of());
+
+        // when / then
+        assertThatThrownBy(lock::acquire).hasMessageContaining("Unable to acquire " + LOCK_NAME);
+        assertThat(clickHouse.count(EXPIRED_OWNER)).isZero();
+    }
+
+    @Test
+    void renews_the_lease_while_it_is_held() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse().answer(RENEWED, List.of(StubClickHouse.row("count()", "1")));
+        ClickHouseKeeperLock lock = lock(clickHouse, Map.of());
+        lock.acquire();
+
+        // when
+        awaitUntil(() -> clickHouse.count(RENEWED) >= 2);
+        lock.release();
+
+        // then
+        assertThat(clickHouse.getStatements()).filteredOn(statement -> statement.contains(RENEW))
+                .allMatch(statement -> statement.contains("toIntervalMillisecond(1000)"));
+        assertThat(clickHouse.getParameters(RENEW).get(0)).isEqualTo(clickHouse.getParameters(INSERT).get(0));
+        assertThat(lock.isLeaseLost()).isFalse();
+    }
+
+    @Test
+    void releases_a_lost_lease_without_failing() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse().answer(RENEWED, List.of(StubClickHouse.row("count()", "0")));
+        ClickHouseKeeperLock lock = lock(clickHouse, Map.of());
+        lock.acquire();
+        awaitUntil(lock::isLeaseLost);
+
+        // when
+        lock.release();
+
+        // then
+        assertThat(lock.isLeaseLost()).isTrue();
+        assertThat(clickHouse.getParameters(RELEASE)).containsExactly(clickHouse.getParameters(INSERT).get(0));
+    }
+
+    @Test
+    void releases_without_failing_when_the_lease_cannot_be_deleted() throws SQLException {
+        // given
+        StubClickHouse clickHouse = new StubClickHouse().fail(RELEASE, new SQLException("Connection refused"));
+        ClickHouseKeeperLock lock = lock(clickHouse, Map.of());
+        lock.acquire();
+
+        // when
+        lock.release();
+
+        // then
+        assertThat(clickHouse.count(RELEASE)).isEqualTo(1);
+    }
+
+    private static ClickHouseKeeperLock lock(StubClickHouse clickHouse, Map<String, String> settings) {
+        Map<String, String> lockSettings = new HashMap<>(settings);
+        lockSettings.put("distributedLock", "true");
+        lockSettings.put("lockLeaseSeconds", "1");
+        lockSettings.put("lockPollIntervalMillis", "1");
+        ClickHouseDatabase database = clickHouse.database("db", lockSettings);
+        return new ClickHouseKeeperLock(database, database.getMainConnection().getSchema("db").getTable("flyway_schema_history"));
+    }
+
+    private static SQLException duplicateKey() {
+        return new SQLException("Code: 999. Coordination::Exception: Node exists, path: /flyway/db/flyway_schema_history_lock",
+                "HY000", 999);
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("Timed out").isLessThan(deadline);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AssertionError(e);
+            }
+        }
+    }
+}
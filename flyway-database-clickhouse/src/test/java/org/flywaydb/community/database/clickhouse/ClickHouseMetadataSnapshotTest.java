@@ -0,0 +1,116 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseMetadataSnapshotTest {
+    private static final String CATALOG_QUERY = "FROM system.databases";
+
+    @Test
+    void reloads_only_the_schema_touched_by_ddl() throws SQLException {
+        // given
+        String first = uniqueName("first");
+        String second = uniqueName("second");
+        StubClickHouse clickHouse = catalog();
+        JdbcTemplate jdbcTemplate = clickHouse.jdbcTemplate();
+        ClickHouseMetadataSnapshot snapshot = new ClickHouseMetadataSnapshot(() -> jdbcTemplate, List.of(first, second));
+        assertThat(snapshot.tableExists(first, "events")).isTrue();
+        assertThat(snapshot.tableExists(second, "events")).isTrue();
+
+        // when
+        ClickHouseMetadataSnapshot.ddlExecuted("CREATE TABLE other_events (id UInt64) ENGINE = MergeTree ORDER BY id", first);
+
+        // then
+        assertThat(snapshot.tableExists(second, "events")).isTrue();
+        assertThat(clickHouse.count(CATALOG_QUERY)).isEqualTo(1);
+        assertThat(snapshot.tableExists(first, "events")).isTrue();
+        assertThat(clickHouse.count(CATALOG_QUERY)).isEqualTo(2);
+        assertThat(clickHouse.getParameters(CATALOG_QUERY).get(1)).containsExactly(first, first);
+    }
+
+    @Test
+    void finds_the_schemas_touched_by_ddl() {
+        assertThat(ClickHouseMetadataSnapshot.getTouchedSchemas("CREATE TABLE t (id UInt64) ENGINE = Memory", "current"))
+                .containsExactly("current");
+        assertThat(ClickHouseMetadataSnapshot.getTouchedSchemas("RENAME TABLE `a`.t TO \"b\" . u", "current"))
+                .containsExactly("current", "a", "b");
+        assertThat(ClickHouseMetadataSnapshot.getTouchedSchemas("CREATE DATABASE IF NOT EXISTS tenant_1 ON CLUSTER c", null))
+                .containsExactly("tenant_1");
+        assertThat(ClickHouseMetadataSnapshot.getTouchedSchemas("ALTER TABLE a.t.x UPDATE v = 1.5 WHERE 1", null))
+                .containsExactly("a");
+    }
+
+    @Test
+    void loads_every_tenant_once_while_each_tenant_runs_ddl() throws SQLException {
+        // given
+        List<String> tenants = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            tenants.add(uniqueName("tenant_" + i));
+        }
+        StubClickHouse clickHouse = catalog();
+        JdbcTemplate jdbcTemplate = clickHouse.jdbcTemplate();
+        ClickHouseMetadataSnapshot snapshot = new ClickHouseMetadataSnapshot(() -> jdbcTemplate, tenants);
+        snapshot.preload(tenants);
+
+        // when
+        for (String tenant : tenants) {
+            assertThat(snapshot.tableExists(tenant, "flyway_schema_history")).isFalse();
+            ClickHouseMetadataSnapshot.ddlExecuted("CREATE TABLE IF NOT EXISTS " + tenant + ".flyway_schema_history (id UInt64)"
+                    + " ENGINE = MergeTree ORDER BY id", tenant);
+            assertThat(snapshot.tableExists(tenant, "events")).isTrue();
+        }
+
+        // then
+        assertThat(clickHouse.count(CATALOG_QUERY)).isEqualTo(1 + tenants.size());
+    }
+
+    /**
+     * @return A catalog in which every schema asked for exists and has a single table named {@code events}.
+     */
+    private static StubClickHouse catalog() {
+        return new StubClickHouse().answer(CATALOG_QUERY, params -> {
+            List<Map<String, String>> rows = new ArrayList<>();
+            for (Object schema : new LinkedHashSet<>(params)) {
+                rows.add(StubClickHouse.row("name", (String) schema, "table", "", "engine", "Atomic"));
+                rows.add(StubClickHouse.row("name", (String) schema, "table", "events", "engine", "MergeTree"));
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * DDL generations are shared by the whole process, so every test works on schemas of its own.
+     */
+    private static String uniqueName(String prefix) {
+        return prefix + "_" + UUID.randomUUID().toString().replace("-", "");
+    }
+}
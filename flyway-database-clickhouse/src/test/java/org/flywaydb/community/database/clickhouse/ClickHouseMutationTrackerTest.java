@@ -0,0 +1,148 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClickHouseMutationTrackerTest {
+    private static final String MUTATIONS = "FROM system.mutations";
+
+    @Test
+    void recognizes_mutations() {
+        assertThat(ClickHouseMutationTracker.isMutation("ALTER TABLE db.events UPDATE name = 'a' WHERE id = 1")).isTrue();
+        assertThat(ClickHouseMutationTracker.isMutation("alter table `my db`.events on cluster main delete where 1")).isTrue();
+        assertThat(ClickHouseMutationTracker.isMutation("-- backfill\nALTER TABLE events MATERIALIZE INDEX idx")).isTrue();
+        assertThat(ClickHouseMutationTracker.isMutation("ALTER TABLE events MODIFY COLUMN id UInt64")).isTrue();
+        assertThat(ClickHouseMutationTracker.isMutation("DELETE FROM db.events WHERE id = 1")).isTrue();
+        assertThat(ClickHouseMutationTracker.isMutation("/* purge */ delete from \"events\" ON CLUSTER main WHERE 1")).isTrue();
+        assertThat(ClickHouseMutationTracker.isMutation("ALTER TABLE events ADD COLUMN name String")).isFalse();
+        assertThat(ClickHouseMutationTracker.isMutation("ALTER TABLE events_updates ADD COLUMN name String")).isFalse();
+        assertThat(ClickHouseMutationTracker.isMutation("SELECT * FROM events WHERE id IN (SELECT id FROM deleted)")).isFalse();
+    }
+
+    @Test
+    void waits_only_before_statements_referencing_a_mutated_table() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(MUTATIONS, List.of());
+        ClickHouseMutationTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, "ALTER TABLE db.events UPDATE name = 'a' WHERE id = 1");
+        submit(tracker, "DELETE FROM users WHERE id = 1");
+
+        // when
+        tracker.beforeStatement("SELECT * FROM db.events_2");
+        int pollsBeforeReference = clickHouse.count(MUTATIONS);
+        tracker.beforeStatement("INSERT INTO other SELECT * FROM Users");
+
+        // then
+        assertThat(pollsBeforeReference).isZero();
+        assertThat(clickHouse.count("SELECT toUnixTimestamp(now())")).isEqualTo(1);
+        assertThat(clickHouse.getStatements()).filteredOn(statement -> statement.contains(MUTATIONS))
+                .singleElement().asString()
+                .contains("create_time >= toDateTime(1700000000)",
+                        "((database = ? AND table = ?) OR (database = currentDatabase() AND table = ?))");
+        assertThat(clickHouse.getParameters(MUTATIONS)).containsExactly(List.of("db", "events", "users"));
+    }
+
+    @Test
+    void waits_until_the_mutations_are_done() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(MUTATIONS,
+                List.of(mutation("")),
+                List.of());
+        ClickHouseMutationTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, "ALTER TABLE db.events DELETE WHERE id = 1");
+
+        // when
+        tracker.await();
+        tracker.await();
+
+        // then
+        assertThat(clickHouse.count(MUTATIONS)).isEqualTo(2);
+    }
+
+    @Test
+    void fails_on_a_failing_mutation() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(MUTATIONS, List.of(mutation("Memory limit exceeded")));
+        ClickHouseMutationTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, "ALTER TABLE db.events DELETE WHERE id = 1");
+
+        // when / then
+        assertThatThrownBy(tracker::await)
+                .isInstanceOf(FlywayException.class)
+                .hasMessage("Mutation mutation_7.txt on db.events (DELETE WHERE id = 1) is failing: Memory limit exceeded"
+                        + "\nUse KILL MUTATION to abort it");
+    }
+
+    @Test
+    void times_out_when_the_mutations_do_not_finish() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse().answer(MUTATIONS, List.of(mutation("")));
+        ClickHouseMutationTracker tracker = tracker(clickHouse, 0);
+        submit(tracker, "ALTER TABLE db.events DELETE WHERE id = 1");
+
+        // when / then
+        assertThatThrownBy(tracker::await)
+                .isInstanceOf(FlywayException.class)
+                .hasMessage("Timed out after 0s waiting for mutations: db.events mutation_7.txt: 3 part(s) to do");
+    }
+
+    @Test
+    void does_not_wait_without_mutations() throws SQLException {
+        // given
+        StubClickHouse clickHouse = clickHouse();
+        ClickHouseMutationTracker tracker = tracker(clickHouse, 60);
+        submit(tracker, "ALTER TABLE db.events ADD COLUMN name String");
+
+        // when
+        tracker.beforeStatement("SELECT * FROM db.events");
+        tracker.await();
+
+        // then
+        assertThat(clickHouse.getStatements()).isEmpty();
+    }
+
+    private static StubClickHouse clickHouse() {
+        return new StubClickHouse().answer("SELECT toUnixTimestamp(now())", List.of(StubClickHouse.row("now", "1700000000")));
+    }
+
+    private static ClickHouseMutationTracker tracker(StubClickHouse clickHouse, int timeoutSeconds) {
+        return new ClickHouseMutationTracker(clickHouse.jdbcTemplate(), timeoutSeconds);
+    }
+
+    private static void submit(ClickHouseMutationTracker tracker, String sql) throws SQLException {
+        tracker.beforeStatement(sql);
+        tracker.afterStatement(sql);
+    }
+
+    private static Map<String, String> mutation(String failReason) {
+        return StubClickHouse.row("database", "db", "table", "events", "mutation_id", "mutation_7.txt",
+                "command", "DELETE WHERE id = 1", "parts_to_do", "3", "latest_fail_reason", failReason);
+    }
+}
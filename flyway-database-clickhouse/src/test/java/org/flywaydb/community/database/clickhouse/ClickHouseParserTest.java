@@ -0,0 +1,125 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseParserTest {
+
+    @Test
+    void keeps_a_format_block_as_one_statement() {
+        // given
+        String csv = "INSERT INTO events FORMAT CSV\n"
+                + "1,'it''s; not the end',\"a;b\"\n"
+                + "2,unbalanced ' quote;x\n";
+
+        // when
+        List<SqlStatement> statements = parse(csv + ";\nSELECT 1;");
+
+        // then
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0).getSql()).isEqualTo(csv.strip());
+        assertThat(statements.get(1).getSql()).isEqualTo("SELECT 1");
+    }
+
+    @Test
+    void ignores_delimiters_inside_values() {
+        // given
+        String insert = "INSERT INTO events VALUES (1, 'a;b', 'it\\'s;', 'c'';d') -- first; row\n"
+                + "/* second; row */ (2, \"x;y\", `z;`)";
+
+        // when
+        List<SqlStatement> statements = parse(insert + ";\nSELECT 1;");
+
+        // then
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0).getSql()).isEqualTo(insert);
+        assertThat(statements.get(1).getSql()).isEqualTo("SELECT 1");
+    }
+
+    @Test
+    void ignores_delimiters_inside_values_after_format_values() {
+        // when
+        List<SqlStatement> statements = parse("INSERT INTO events FORMAT Values (1, ';')\n;\nSELECT 1;");
+
+        // then
+        assertThat(statements).hasSize(2);
+        assertThat(statements.get(0).getSql()).isEqualTo("INSERT INTO events FORMAT Values (1, ';')");
+    }
+
+    @Test
+    void applies_settings_directives_to_the_following_statements() {
+        // when
+        List<SqlStatement> statements = parse("SELECT 1;\n"
+                + "-- ClickHouse:Settings max_threads = 2, insert_quorum='auto'\n"
+                + "SELECT 2;\n"
+                + "-- clickhouse:settings max_threads=4\n"
+                + "SELECT 3;");
+
+        // then
+        assertThat(statements).hasSize(3);
+        assertThat(ClickHouseSqlStatement.getSettings(statements.get(0))).isEmpty();
+        assertThat(ClickHouseSqlStatement.getSettings(statements.get(1)))
+                .isEqualTo(Map.of("max_threads", "2", "insert_quorum", "'auto'"));
+        assertThat(ClickHouseSqlStatement.getSettings(statements.get(2)))
+                .isEqualTo(Map.of("max_threads", "4", "insert_quorum", "'auto'"));
+    }
+
+    @Test
+    void treats_other_comments_as_plain_comments() {
+        // when
+        List<SqlStatement> statements = parse("-- clickhouse settings max_threads=2\n"
+                + "-- clickhouse:note: not a directive; really\n"
+                + "SELECT 1;");
+
+        // then
+        assertThat(statements).hasSize(1);
+        assertThat(ClickHouseSqlStatement.getSettings(statements.get(0))).isEmpty();
+    }
+
+    @Test
+    void strips_leading_comments() {
+        assertThat(ClickHouseParser.stripLeadingComments(" -- a\n# b\n/* c\n */ INSERT -- d")).isEqualTo("INSERT -- d");
+        assertThat(ClickHouseParser.stripLeadingComments("// not a comment\nINSERT")).isEqualTo("// not a comment\nINSERT");
+        assertThat(ClickHouseParser.stripLeadingComments("-- only a comment")).isEmpty();
+        assertThat(ClickHouseParser.stripLeadingComments("SELECT 1")).isEqualTo("SELECT 1");
+    }
+
+    private static List<SqlStatement> parse(String sql) {
+        ClickHouseParser parser = new ClickHouseParser(new FluentConfiguration(), new ParsingContext(), 3);
+        List<SqlStatement> statements = new ArrayList<>();
+        try (SqlStatementIterator iterator = parser.parse(new StringResource(sql))) {
+            iterator.forEachRemaining(statements::add);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,59 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseSchemaTest {
+
+    @Test
+    void recreates_a_database_with_its_own_engine_and_settings() {
+        // given
+        String createStatement = "CREATE DATABASE tenant\n"
+                + "ENGINE = Replicated('/clickhouse/custom/tenant', '{shard}', '{replica}')\n"
+                + "SETTINGS max_broken_tables_ratio = 1\n"
+                + "COMMENT 'owned by the tenant team'";
+
+        // when
+        String recreateStatement = ClickHouseSchema.getRecreateStatement(createStatement, "`tenant`", " ON CLUSTER main");
+
+        // then
+        assertThat(recreateStatement).isEqualTo("CREATE DATABASE `tenant` ON CLUSTER main "
+                + "ENGINE = Replicated('/clickhouse/custom/tenant', '{shard}', '{replica}')\n"
+                + "SETTINGS max_broken_tables_ratio = 1\n"
+                + "COMMENT 'owned by the tenant team'");
+    }
+
+    @Test
+    void recreates_an_atomic_database_without_its_uuid() {
+        assertThat(ClickHouseSchema.getRecreateStatement(
+                "CREATE DATABASE `my-db` UUID 'a4bdfc3e-0b7e-4b4e-8a0c-52d4f3c9b1e2' ENGINE = Atomic", "`my-db`", ""))
+                .isEqualTo("CREATE DATABASE `my-db` ENGINE = Atomic");
+    }
+
+    @Test
+    void refuses_to_recreate_a_database_without_an_engine() {
+        assertThat(ClickHouseSchema.getRecreateStatement("CREATE DATABASE `engine_db`", "`engine_db`", "")).isNull();
+        assertThat(ClickHouseSchema.getRecreateStatement(null, "`tenant`", "")).isNull();
+    }
+}
@@ -0,0 +1,158 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.internal.callback.NoopCallbackExecutor;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.ParserSqlScript;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseSqlScriptExecutorTest {
+    private static final String QUEUE = "FROM system.distributed_ddl_queue";
+    private static final String METRICS = "FROM system.query_log";
+
+    @Test
+    void tags_the_queries_run_on_behalf_of_a_statement_with_it() {
+        // given
+        StubClickHouse clickHouse = clickHouse();
+        ClickHouseDatabase database = clickHouse.database("db", Map.of(
+                "queryMetrics", "true", "clusterName", "main", "pipelineDistributedDdl", "true"));
+
+        // when
+        execute(database, "CREATE TABLE db.events ON CLUSTER main (id UInt64) ENGINE = MergeTree ORDER BY id;\n"
+                + "INSERT INTO db.events VALUES (1);\n"
+                + "CREATE TABLE db.users ON CLUSTER main (id UInt64) ENGINE = MergeTree ORDER BY id;");
+
+        // then
+        List<String> statements = clickHouse.getStatements();
+        assertThat(statements).containsSubsequence(
+                "SET log_comment = 'flyway:V1__tags.sql:0001'",
+                "SELECT getSetting('distributed_ddl_output_mode') AS output_mode, getSetting('distributed_ddl_task_timeout') AS task_timeout",
+                "CREATE TABLE db.events ON CLUSTER main (id UInt64) ENGINE = MergeTree ORDER BY id",
+                "SET log_comment = 'flyway:V1__tags.sql:0002'");
+        int insertTag = statements.indexOf("SET log_comment = 'flyway:V1__tags.sql:0002'");
+        int insert = statements.indexOf("INSERT INTO db.events VALUES (1)");
+        int barrierTag = statements.indexOf("SET log_comment = 'flyway:V1__tags.sql:barrier'");
+        int restore = statements.indexOf("SET log_comment = 'original'");
+        assertThat(indexesOf(statements, QUEUE)).hasSize(2).allSatisfy(poll -> assertThat(poll)
+                .satisfiesAnyOf(
+                        index -> assertThat(index).isBetween(insertTag, insert),
+                        index -> assertThat(index).isBetween(barrierTag, restore)));
+        assertThat(statements.indexOf(statements.stream().filter(s -> s.contains(METRICS)).findFirst().orElseThrow()))
+                .isGreaterThan(restore);
+        assertThat(clickHouse.getParameters(METRICS)).containsExactly(List.of("flyway:V1__tags.sql:", "flyway:V1__tags.sql:"));
+    }
+
+    @Test
+    void does_not_tag_a_barrier_without_anything_to_wait_for() {
+        // given
+        StubClickHouse clickHouse = clickHouse();
+        ClickHouseDatabase database = clickHouse.database("db", Map.of("queryMetrics", "true"));
+
+        // when
+        execute(database, "INSERT INTO db.events VALUES (1);");
+
+        // then
+        assertThat(clickHouse.getStatements())
+                .contains("SET log_comment = 'flyway:V1__tags.sql:0001'")
+                .doesNotContain("SET log_comment = 'flyway:V1__tags.sql:barrier'")
+                .filteredOn(statement -> statement.contains(METRICS))
+                .singleElement().asString().contains("event_time >= toDateTime(1700000000)");
+    }
+
+    @Test
+    void submits_mutations_asynchronously_behind_a_script_barrier() {
+        // given
+        StubClickHouse clickHouse = clickHouse()
+                .answer("SELECT toString(getSetting('mutations_sync'))", List.of(StubClickHouse.row("value", "2")))
+                .answer("FROM system.mutations", List.of());
+        ClickHouseDatabase database = clickHouse.database("db", Map.of("mutationBarrier", "SCRIPT"));
+
+        // when
+        execute(database, "DELETE FROM db.events WHERE id = 1;\nALTER TABLE db.users UPDATE name = '' WHERE 1;");
+
+        // then
+        assertThat(clickHouse.getStatements()).containsSubsequence(
+                "SET mutations_sync = 0",
+                "DELETE FROM db.events WHERE id = 1",
+                "ALTER TABLE db.users UPDATE name = '' WHERE 1",
+                "SET mutations_sync = 2");
+        assertThat(clickHouse.count("FROM system.mutations")).isEqualTo(1);
+    }
+
+    @Test
+    void leaves_mutations_to_the_server_by_default() {
+        // given
+        StubClickHouse clickHouse = clickHouse();
+        ClickHouseDatabase database = clickHouse.database("db", Map.of());
+
+        // when
+        execute(database, "DELETE FROM db.events WHERE id = 1;\nALTER TABLE db.users UPDATE name = '' WHERE 1;");
+
+        // then
+        assertThat(clickHouse.getStatements())
+                .containsExactly("DELETE FROM db.events WHERE id = 1", "ALTER TABLE db.users UPDATE name = '' WHERE 1");
+    }
+
+    private static StubClickHouse clickHouse() {
+        return new StubClickHouse()
+                .answer("SELECT getSetting('log_comment')", List.of(StubClickHouse.row("log_comment", "original")))
+                .answer("SELECT getSetting('distributed_ddl_output_mode')",
+                        List.of(StubClickHouse.row("output_mode", "throw", "task_timeout", "180")))
+                .answer("SELECT toUnixTimestamp(now())", List.of(StubClickHouse.row("now", "1700000000")))
+                .answer(QUEUE, List.of(
+                        StubClickHouse.row("entry", "query-0000000001", "host", "a", "port", "9000", "status", "Finished",
+                                "exception_code", "0", "exception_text", ""),
+                        StubClickHouse.row("entry", "query-0000000002", "host", "a", "port", "9000", "status", "Finished",
+                                "exception_code", "0", "exception_text", "")))
+                .answer(METRICS, List.of());
+    }
+
+    private static void execute(ClickHouseDatabase database, String sql) {
+        SqlScript sqlScript = new ParserSqlScript(new ClickHouseParser(database.getConfiguration(), new ParsingContext(), 3),
+                new StringResource(sql) {
+                    @Override
+                    public String getFilename() {
+                        return "V1__tags.sql";
+                    }
+                }, null, false);
+        new ClickHouseSqlScriptExecutor(database.getMainConnection().getJdbcTemplate(), NoopCallbackExecutor.INSTANCE,
+                false, false, false, null).execute(sqlScript, database.getConfiguration());
+    }
+
+    private static List<Integer> indexesOf(List<String> statements, String fragment) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i).contains(fragment)) {
+                indexes.add(i);
+            }
+        }
+        return indexes;
+    }
+}
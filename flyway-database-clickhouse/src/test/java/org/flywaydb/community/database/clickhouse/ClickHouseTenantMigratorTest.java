@@ -0,0 +1,81 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClickHouseTenantMigratorTest {
+    private static final String CATALOG_QUERY = "FROM system.databases";
+
+    @Test
+    void shares_the_system_connection_and_catalog_across_tenants(@TempDir Path locations) throws IOException {
+        // given
+        Files.writeString(locations.resolve("V1__create_events.sql"),
+                "CREATE TABLE events (id UInt64) ENGINE = MergeTree ORDER BY id;");
+        List<String> tenants = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            tenants.add("tenant_" + i + "_" + UUID.randomUUID().toString().replace("-", ""));
+        }
+        // Every other tenant is new and gets created
+        StubClickHouse clickHouse = new StubClickHouse();
+        clickHouse.answer(CATALOG_QUERY, params -> {
+            List<Map<String, String>> rows = new ArrayList<>();
+            for (Object schema : new LinkedHashSet<>(params)) {
+                if (tenants.indexOf(schema) % 2 == 0 || clickHouse.count("CREATE DATABASE \"" + schema + "\"") > 0) {
+                    rows.add(StubClickHouse.row("name", (String) schema, "table", "", "engine", "Atomic"));
+                }
+                if (clickHouse.count("CREATE TABLE IF NOT EXISTS \"" + schema + "\".\"flyway_schema_history\"") > 0) {
+                    rows.add(StubClickHouse.row("name", (String) schema, "table", "flyway_schema_history", "engine", "MergeTree"));
+                }
+            }
+            return rows;
+        });
+        Configuration configuration = new FluentConfiguration()
+                .dataSource(clickHouse.dataSource())
+                .locations("filesystem:" + locations);
+
+        // when
+        ClickHouseTenantMigrationReport report = new ClickHouseTenantMigrator(configuration, 4).migrate(tenants);
+
+        // then
+        assertThat(report.getFailed()).isEmpty();
+        assertThat(clickHouse.count("CREATE DATABASE")).isEqualTo(tenants.size() / 2);
+        assertThat(clickHouse.count("CREATE TABLE events")).isEqualTo(tenants.size());
+        // The shared system connection, then one main connection per tenant
+        assertThat(clickHouse.getOpenedConnections()).isEqualTo(1 + tenants.size());
+        // One query for every tenant up front, then one per tenant after each of its two scripts ran DDL
+        assertThat(clickHouse.count(CATALOG_QUERY)).isEqualTo(1 + 2 * tenants.size());
+    }
+}
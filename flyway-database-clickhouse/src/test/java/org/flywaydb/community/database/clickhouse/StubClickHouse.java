@@ -0,0 +1,347 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-clickhouse
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.clickhouse;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stands in for a ClickHouse server and its JDBC driver. Its connections answer queries with canned rows instead of
+ * asking a server, and record every statement they run along with its parameters.
+ */
+class StubClickHouse {
+    private final List<String> statements = new ArrayList<>();
+    private final List<List<Object>> parameters = new ArrayList<>();
+    private final Map<String, Answer> answers = new LinkedHashMap<>();
+    private final Map<String, SQLException> failures = new LinkedHashMap<>();
+    private final AtomicInteger openedConnections = new AtomicInteger();
+
+    /**
+     * Answers the statements containing the given fragment. The first matching answer wins.
+     */
+    synchronized StubClickHouse answer(String fragment, Answer answer) {
+        answers.put(fragment, answer);
+        return this;
+    }
+
+    /**
+     * Answers the statements containing the given fragment with each of the given results in turn, the last one
+     * repeating.
+     */
+    @SafeVarargs
+    final StubClickHouse answer(String fragment, List<Map<String, String>>... results) {
+        AtomicInteger calls = new AtomicInteger();
+        return answer(fragment, params -> results[Math.min(calls.getAndIncrement(), results.length - 1)]);
+    }
+
+    /**
+     * Fails the statements containing the given fragment with the given exception.
+     */
+    synchronized StubClickHouse fail(String fragment, SQLException exception) {
+        failures.put(fragment, exception);
+        return this;
+    }
+
+    synchronized List<String> getStatements() {
+        return new ArrayList<>(statements);
+    }
+
+    /**
+     * @return The parameters of every statement containing the given fragment, in execution order.
+     */
+    synchronized List<List<Object>> getParameters(String fragment) {
+        List<List<Object>> result = new ArrayList<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i).contains(fragment)) {
+                result.add(parameters.get(i));
+            }
+        }
+        return result;
+    }
+
+    synchronized int count(String fragment) {
+        return (int) statements.stream().filter(statement -> statement.contains(fragment)).count();
+    }
+
+    int getOpenedConnections() {
+        return openedConnections.get();
+    }
+
+    static Map<String, String> row(String... namesAndValues) {
+        Map<String, String> row = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            row.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+        return row;
+    }
+
+    /**
+     * @param settings The configuration properties. Those not starting with {@code flyway.} are
+     *                 {@code flyway.clickhouse.*} settings without their prefix.
+     * @return A database connected to this server.
+     */
+    ClickHouseDatabase database(String defaultSchema, Map<String, String> settings) {
+        Map<String, String> properties = new HashMap<>();
+        settings.forEach((key, value) -> properties.put(key.startsWith("flyway.") ? key : "flyway.clickhouse." + key, value));
+        Configuration configuration = new FluentConfiguration()
+                .dataSource(dataSource())
+                .defaultSchema(defaultSchema)
+                .configuration(properties);
+        return new ClickHouseDatabase(configuration, new JdbcConnectionFactory(configuration.getDataSource(), configuration, null), null);
+    }
+
+    JdbcTemplate jdbcTemplate() {
+        return new JdbcTemplate(connect(), new ClickHouseDatabaseType());
+    }
+
+    DataSource dataSource() {
+        return proxy(DataSource.class, (method, args) -> "getConnection".equals(method.getName()) ? connect() : null);
+    }
+
+    Connection connect() {
+        openedConnections.incrementAndGet();
+        String[] catalog = {"default"};
+        boolean[] autoCommit = {true};
+        Connection[] connection = new Connection[1];
+        DatabaseMetaData metaData = proxy(DatabaseMetaData.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getDatabaseProductName":
+                    return "ClickHouse";
+                case "getDatabaseProductVersion":
+                    return "24.3.1.1";
+                case "getDatabaseMajorVersion":
+                    return 24;
+                case "getDatabaseMinorVersion":
+                    return 3;
+                case "getURL":
+                    return "jdbc:clickhouse://localhost:8123/default";
+                case "getUserName":
+                    return "default";
+                case "getDriverName":
+                    return "ClickHouse JDBC Driver";
+                case "getDriverVersion":
+                    return "0.5.0";
+                case "getCatalogTerm":
+                    return "database";
+                case "getConnection":
+                    return connection[0];
+                default:
+                    return null;
+            }
+        });
+        connection[0] = proxy(Connection.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getMetaData":
+                    return metaData;
+                case "prepareStatement":
+                    return statement(connection[0], (String) args[0]);
+                case "createStatement":
+                    return statement(connection[0], null);
+                case "getCatalog":
+                    return catalog[0];
+                case "setCatalog":
+                    catalog[0] = (String) args[0];
+                    return null;
+                case "getAutoCommit":
+                    return autoCommit[0];
+                case "setAutoCommit":
+                    autoCommit[0] = (Boolean) args[0];
+                    return null;
+                case "isValid":
+                    return true;
+                default:
+                    return null;
+            }
+        });
+        return connection[0];
+    }
+
+    private PreparedStatement statement(Connection connection, String preparedSql) {
+        Map<Integer, Object> params = new TreeMap<>();
+        ResultSet[] resultSet = new ResultSet[1];
+        return proxy(PreparedStatement.class, (method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                params.put((Integer) args[0], "setNull".equals(name) ? null : args[1]);
+                return null;
+            }
+            switch (name) {
+                case "executeQuery":
+                case "execute":
+                case "executeUpdate":
+                    String sql = args != null && args.length > 0 ? (String) args[0] : preparedSql;
+                    List<Map<String, String>> rows = run(sql, new ArrayList<>(params.values()));
+                    resultSet[0] = rows == null ? null : resultSet(rows);
+                    if ("executeQuery".equals(name)) {
+                        return resultSet[0] == null ? resultSet(List.of()) : resultSet[0];
+                    }
+                    return "execute".equals(name) ? resultSet[0] != null : 0;
+                case "getResultSet":
+                    return resultSet[0];
+                case "getUpdateCount":
+                    return -1;
+                case "getConnection":
+                    return connection;
+                default:
+                    return null;
+            }
+        });
+    }
+
+    /**
+     * @return The rows answering the statement, {@code null} if it has no answer.
+     */
+    private List<Map<String, String>> run(String sql, List<Object> params) throws SQLException {
+        Answer answer = null;
+        synchronized (this) {
+            statements.add(sql);
+            parameters.add(params);
+            for (Map.Entry<String, SQLException> failure : failures.entrySet()) {
+                if (sql.contains(failure.getKey())) {
+                    throw failure.getValue();
+                }
+            }
+            for (Map.Entry<String, Answer> candidate : answers.entrySet()) {
+                if (sql.contains(candidate.getKey())) {
+                    answer = candidate.getValue();
+                    break;
+                }
+            }
+        }
+        return answer == null ? null : answer.answer(params);
+    }
+
+    private static ResultSet resultSet(List<Map<String, String>> rows) {
+        Iterator<Map<String, String>> iterator = rows.iterator();
+        List<String> columns = rows.isEmpty() ? List.of() : new ArrayList<>(rows.get(0).keySet());
+        ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getColumnCount":
+                    return columns.size();
+                case "getColumnLabel":
+                case "getColumnName":
+                    return columns.get((Integer) args[0] - 1);
+                default:
+                    return null;
+            }
+        });
+        List<Map<String, String>> current = new ArrayList<>(List.of(Map.of()));
+        return proxy(ResultSet.class, (method, args) -> {
+            switch (method.getName()) {
+                case "next":
+                    if (!iterator.hasNext()) {
+                        return false;
+                    }
+                    current.set(0, iterator.next());
+                    return true;
+                case "getMetaData":
+                    return metaData;
+                case "getString":
+                case "getObject":
+                    return value(current.get(0), args[0]);
+                case "getInt":
+                    String intValue = value(current.get(0), args[0]);
+                    return intValue == null ? 0 : Integer.parseInt(intValue);
+                case "getLong":
+                    String longValue = value(current.get(0), args[0]);
+                    return longValue == null ? 0L : Long.parseLong(longValue);
+                case "getBoolean":
+                    String booleanValue = value(current.get(0), args[0]);
+                    return "1".equals(booleanValue) || Boolean.parseBoolean(booleanValue);
+                default:
+                    return null;
+            }
+        });
+    }
+
+    private static String value(Map<String, String> row, Object column) {
+        if (column instanceof Integer) {
+            List<String> values = new ArrayList<>(row.values());
+            return (Integer) column <= values.size() ? values.get((Integer) column - 1) : null;
+        }
+        return row.get((String) column);
+    }
+
+    /**
+     * Answers a statement with rows, or fails it.
+     */
+    interface Answer {
+        List<Map<String, String>> answer(List<Object> params) throws SQLException;
+    }
+
+    private interface Handler {
+        Object handle(Method method, Object[] args) throws Throwable;
+    }
+
+    /**
+     * @return A proxy handling the methods of the interface with the given handler. Methods returning a primitive
+     * type the handler does not answer return its default value.
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(StubClickHouse.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if ("toString".equals(method.getName())) {
+                return type.getSimpleName() + "@stub";
+            }
+            if ("hashCode".equals(method.getName())) {
+                return System.identityHashCode(proxy);
+            }
+            if ("equals".equals(method.getName())) {
+                return proxy == args[0];
+            }
+            Object result = handler.handle(method, args);
+            if (result == null && method.getReturnType().isPrimitive()) {
+                Class<?> returnType = method.getReturnType();
+                if (returnType == boolean.class) {
+                    return false;
+                }
+                if (returnType == void.class) {
+                    return null;
+                }
+                if (returnType == long.class) {
+                    return 0L;
+                }
+                return 0;
+            }
+            return result;
+        });
+    }
+}
@@ -0,0 +1,58 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.internal.sqlscript.Delimiter;
+import org.flywaydb.core.internal.sqlscript.ParsedSqlStatement;
+
+/**
+ * A statement loading rows from external files, e.g. {@code COPY ... FROM} or
+ * {@code CREATE TABLE ... AS SELECT * FROM read_parquet(...)}.
+ */
+public class DuckDBBulkLoadStatement extends ParsedSqlStatement {
+
+    public enum Kind {
+        COPY,
+        CREATE_TABLE_AS,
+        INSERT
+    }
+
+    private final Kind kind;
+    private final String target;
+
+    public DuckDBBulkLoadStatement(int pos, int line, int col, String sql, Delimiter delimiter,
+                                   boolean canExecuteInTransaction, boolean batchable, Kind kind, String target) {
+        super(pos, line, col, sql, delimiter, canExecuteInTransaction, batchable);
+        this.kind = kind;
+        this.target = target;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return The table the rows are loaded into, as written in the statement.
+     */
+    public String getTarget() {
+        return target;
+    }
+}
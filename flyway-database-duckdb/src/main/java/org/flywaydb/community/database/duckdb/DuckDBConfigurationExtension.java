@@ -0,0 +1,139 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.extensibility.ConfigurationExtension;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class DuckDBConfigurationExtension implements ConfigurationExtension {
+
+    private static final String DEFER_CHECKPOINTS = "flyway.duckdb.deferCheckpoints";
+    private static final String BULK_LOAD_THREADS = "flyway.duckdb.bulkLoadThreads";
+    private static final String BULK_LOAD_MEMORY_LIMIT = "flyway.duckdb.bulkLoadMemoryLimit";
+    private static final String BULK_LOAD_TEMP_DIRECTORY = "flyway.duckdb.bulkLoadTempDirectory";
+    private static final String BULK_LOAD_PRESERVE_INSERTION_ORDER = "flyway.duckdb.bulkLoadPreserveInsertionOrder";
+
+    private boolean deferCheckpoints;
+    private Integer bulkLoadThreads;
+    private String bulkLoadMemoryLimit;
+    private String bulkLoadTempDirectory;
+    private Boolean bulkLoadPreserveInsertionOrder;
+
+    public boolean isDeferCheckpoints() {
+        return deferCheckpoints;
+    }
+
+    public Integer getBulkLoadThreads() {
+        return bulkLoadThreads;
+    }
+
+    public String getBulkLoadMemoryLimit() {
+        return bulkLoadMemoryLimit;
+    }
+
+    public String getBulkLoadTempDirectory() {
+        return bulkLoadTempDirectory;
+    }
+
+    public Boolean getBulkLoadPreserveInsertionOrder() {
+        return bulkLoadPreserveInsertionOrder;
+    }
+
+    /**
+     * @return The settings to apply while executing bulk load statements, as setting names and SQL literals. Empty
+     * if no bulk load setting is configured.
+     */
+    public Map<String, String> getBulkLoadSettings() {
+        final var settings = new LinkedHashMap<String, String>();
+        if (bulkLoadThreads != null) {
+            settings.put("threads", bulkLoadThreads.toString());
+        }
+        if (bulkLoadMemoryLimit != null) {
+            settings.put("memory_limit", quote(bulkLoadMemoryLimit));
+        }
+        if (bulkLoadTempDirectory != null) {
+            settings.put("temp_directory", quote(bulkLoadTempDirectory));
+        }
+        if (bulkLoadPreserveInsertionOrder != null) {
+            settings.put("preserve_insertion_order", bulkLoadPreserveInsertionOrder.toString());
+        }
+        return settings;
+    }
+
+    private static String quote(String value) {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    @Override
+    public String getNamespace() {
+        return "duckdb";
+    }
+
+    @Override
+    public void extractParametersFromConfiguration(Map<String, String> configuration) {
+        final var deferCheckpoints = configuration.remove(DEFER_CHECKPOINTS);
+        if (deferCheckpoints != null) {
+            this.deferCheckpoints = Boolean.parseBoolean(deferCheckpoints);
+        }
+        final var bulkLoadThreads = configuration.remove(BULK_LOAD_THREADS);
+        if (bulkLoadThreads != null) {
+            this.bulkLoadThreads = parsePositiveInt(BULK_LOAD_THREADS, bulkLoadThreads);
+        }
+        final var bulkLoadMemoryLimit = configuration.remove(BULK_LOAD_MEMORY_LIMIT);
+        if (bulkLoadMemoryLimit != null) {
+            this.bulkLoadMemoryLimit = bulkLoadMemoryLimit;
+        }
+        final var bulkLoadTempDirectory = configuration.remove(BULK_LOAD_TEMP_DIRECTORY);
+        if (bulkLoadTempDirectory != null) {
+            this.bulkLoadTempDirectory = bulkLoadTempDirectory;
+        }
+        final var bulkLoadPreserveInsertionOrder = configuration.remove(BULK_LOAD_PRESERVE_INSERTION_ORDER);
+        if (bulkLoadPreserveInsertionOrder != null) {
+            this.bulkLoadPreserveInsertionOrder = Boolean.parseBoolean(bulkLoadPreserveInsertionOrder);
+        }
+    }
+
+    private static int parsePositiveInt(String key, String value) {
+        try {
+            final var parsed = Integer.parseInt(value.trim());
+            if (parsed > 0) {
+                return parsed;
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new FlywayException("Invalid value for " + key + ": " + value + " (must be a positive integer)");
+    }
+
+    @Override
+    public String getConfigurationParameterFromEnvironmentVariable(String environmentVariable) {
+        return switch (environmentVariable) {
+            case "FLYWAY_DUCKDB_DEFER_CHECKPOINTS" -> DEFER_CHECKPOINTS;
+            case "FLYWAY_DUCKDB_BULK_LOAD_THREADS" -> BULK_LOAD_THREADS;
+            case "FLYWAY_DUCKDB_BULK_LOAD_MEMORY_LIMIT" -> BULK_LOAD_MEMORY_LIMIT;
+            case "FLYWAY_DUCKDB_BULK_LOAD_TEMP_DIRECTORY" -> BULK_LOAD_TEMP_DIRECTORY;
+            case "FLYWAY_DUCKDB_BULK_LOAD_PRESERVE_INSERTION_ORDER" -> BULK_LOAD_PRESERVE_INSERTION_ORDER;
+            default -> null;
+        };
+    }
+}
@@ -20,20 +20,73 @@
 package org.flywaydb.community.database.duckdb;
 
 import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
 import org.flywaydb.core.internal.database.base.Database;
 import org.flywaydb.core.internal.database.base.Table;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
 import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
 import org.flywaydb.core.internal.jdbc.StatementInterceptor;
 
+import java.sql.SQLException;
+
 public class DuckDBDatabase extends Database<DuckDBConnection> {
 
+    private static final Log LOG = LogFactory.getLog(DuckDBDatabase.class);
+
+    /**
+     * Large enough for the WAL to never reach it during a migration. {@code checkpoint_threshold} is an alias.
+     */
+    private static final String DEFERRED_WAL_AUTOCHECKPOINT = "1TB";
+
+    private String originalWalAutocheckpoint;
+
     public DuckDBDatabase(Configuration configuration, JdbcConnectionFactory jdbcConnectionFactory, StatementInterceptor statementInterceptor) {
         super(configuration, jdbcConnectionFactory, statementInterceptor);
     }
 
     @Override
     protected DuckDBConnection doGetConnection(java.sql.Connection connection) {
-        return new DuckDBConnection(this, connection);
+        final var duckDBConnection = new DuckDBConnection(this, connection);
+        deferCheckpoints(duckDBConnection);
+        return duckDBConnection;
+    }
+
+    /**
+     * Stops commits from checkpointing the WAL into the database file until this database is closed, so that a
+     * migration rewrites the file once instead of once per migration.
+     * <p>
+     * {@code SET GLOBAL wal_autocheckpoint} applies to the whole in-process DuckDB instance, not only to Flyway's
+     * connections: every other connection the application has open on the same database file stops checkpointing too,
+     * until the original value is restored when this database is closed.
+     */
+    private void deferCheckpoints(DuckDBConnection connection) {
+        if (originalWalAutocheckpoint != null || !configuration.getPluginRegister().getPlugin(DuckDBConfigurationExtension.class).isDeferCheckpoints()) {
+            return;
+        }
+        try {
+            final var jdbcTemplate = connection.getJdbcTemplate();
+            originalWalAutocheckpoint = jdbcTemplate.queryForString("SELECT current_setting('wal_autocheckpoint')");
+            jdbcTemplate.execute("SET GLOBAL wal_autocheckpoint = '%s'".formatted(DEFERRED_WAL_AUTOCHECKPOINT));
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to defer DuckDB checkpoints", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (originalWalAutocheckpoint != null) {
+            try {
+                final var jdbcTemplate = getMainConnection().getJdbcTemplate();
+                jdbcTemplate.execute("SET GLOBAL wal_autocheckpoint = '%s'".formatted(originalWalAutocheckpoint));
+                jdbcTemplate.execute("CHECKPOINT");
+            } catch (SQLException e) {
+                LOG.warn("Unable to checkpoint DuckDB database: " + e.getMessage());
+            } finally {
+                originalWalAutocheckpoint = null;
+            }
+        }
+        super.close();
     }
 
     @Override
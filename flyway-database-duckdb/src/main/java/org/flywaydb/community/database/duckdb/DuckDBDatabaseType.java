@@ -22,12 +22,15 @@ package org.flywaydb.community.database.duckdb;
 import org.flywaydb.community.database.DuckDBDatabaseExtension;
 import org.flywaydb.core.api.ResourceProvider;
 import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.callback.CallbackExecutor;
 import org.flywaydb.core.internal.database.base.BaseDatabaseType;
 import org.flywaydb.core.internal.database.base.CommunityDatabaseType;
 import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 import org.flywaydb.core.internal.jdbc.StatementInterceptor;
 import org.flywaydb.core.internal.parser.Parser;
 import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutorFactory;
 
 import java.sql.Connection;
 
@@ -68,6 +71,13 @@ public class DuckDBDatabaseType extends BaseDatabaseType implements CommunityDat
         return new DuckDBParser(configuration, parsingContext);
     }
 
+    @Override
+    public SqlScriptExecutorFactory createSqlScriptExecutorFactory(JdbcConnectionFactory jdbcConnectionFactory, CallbackExecutor callbackExecutor, StatementInterceptor statementInterceptor) {
+        return (connection, undo, batch, outputQueryResults) -> new DuckDBSqlScriptExecutor(
+            new JdbcTemplate(connection, this), callbackExecutor, undo,
+            jdbcConnectionFactory.isSupportsBatch() && batch, outputQueryResults, statementInterceptor);
+    }
+
     @Override
     public String getPluginVersion(Configuration config) {
         return DuckDBDatabaseExtension.readVersion();
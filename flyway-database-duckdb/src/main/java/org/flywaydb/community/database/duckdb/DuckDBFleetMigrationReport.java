@@ -0,0 +1,105 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.api.output.MigrateResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The outcome of a {@link DuckDBFleetMigrator} run, per database file.
+ */
+public class DuckDBFleetMigrationReport {
+
+    private final Map<Path, MigrateResult> succeeded = new TreeMap<>();
+    private final Map<Path, RuntimeException> failed = new TreeMap<>();
+    private final Map<Path, Long> durationsMillis = new TreeMap<>();
+
+    synchronized void succeeded(Path file, MigrateResult result, long durationMillis) {
+        succeeded.put(file, result);
+        durationsMillis.put(file, durationMillis);
+    }
+
+    synchronized void failed(Path file, RuntimeException exception, long durationMillis) {
+        failed.put(file, exception);
+        durationsMillis.put(file, durationMillis);
+    }
+
+    /**
+     * @return The result of every file which was migrated successfully.
+     */
+    public synchronized Map<Path, MigrateResult> getSucceeded() {
+        return Collections.unmodifiableMap(new TreeMap<>(succeeded));
+    }
+
+    /**
+     * @return The exception of every file which failed to migrate.
+     */
+    public synchronized Map<Path, RuntimeException> getFailed() {
+        return Collections.unmodifiableMap(new TreeMap<>(failed));
+    }
+
+    public synchronized boolean isSuccess() {
+        return failed.isEmpty();
+    }
+
+    public synchronized String getSummary() {
+        final var migrations = succeeded.values().stream().mapToInt(result -> result.migrationsExecuted).sum();
+        final var summary = new StringBuilder("Migrated " + succeeded.size() + " DuckDB database file(s) ("
+            + migrations + " migration(s) applied), " + failed.size() + " failed");
+        for (final var failure : failed.entrySet()) {
+            summary.append("\n  ").append(failure.getKey()).append(": ").append(failure.getValue().getMessage());
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Writes one tab-separated line per file: path, status, migrations applied, target version, duration in
+     * milliseconds and error message.
+     */
+    public synchronized void writeManifest(Path manifest) throws IOException {
+        final var lines = new ArrayList<String>();
+        lines.add(String.join("\t", "file", "status", "migrations", "target_version", "duration_ms", "error"));
+        for (final var file : durationsMillis.keySet()) {
+            final var result = succeeded.get(file);
+            final var error = failed.get(file);
+            lines.add(String.join("\t",
+                file.toString(),
+                result != null ? "success" : "failed",
+                result != null ? String.valueOf(result.migrationsExecuted) : "",
+                result != null && result.targetSchemaVersion != null ? result.targetSchemaVersion : "",
+                String.valueOf(durationsMillis.get(file)),
+                error != null ? String.valueOf(error.getMessage()).replaceAll("\\s+", " ") : ""));
+        }
+        Files.write(manifest, lines);
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
@@ -0,0 +1,229 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.ResourceProvider;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.scanner.LocationScannerCache;
+import org.flywaydb.core.internal.scanner.ResourceNameCache;
+import org.flywaydb.core.internal.scanner.Scanner;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Applies the same set of migrations to many DuckDB database files (e.g. one per customer extract) concurrently.
+ * <p>
+ * Every file is migrated by its own {@link Flyway} instance, built from the base configuration with the file as its
+ * data source. The migration locations are scanned once, or the configured resource provider is used, and the text of
+ * every migration script is read into memory once, then shared by all instances; each instance still parses the
+ * scripts itself. A failing file does not abort the
+ * others; outcomes are collected in the returned {@link DuckDBFleetMigrationReport}, which can be written out as a
+ * manifest.
+ */
+public class DuckDBFleetMigrator {
+
+    private static final Log LOG = LogFactory.getLog(DuckDBFleetMigrator.class);
+
+    private static final String URL_PREFIX = "jdbc:duckdb:";
+
+    private final Configuration configuration;
+    private final int parallelism;
+
+    /**
+     * @param configuration The configuration shared by all files. Its data source is replaced for each file.
+     * @param parallelism   The maximum number of files migrated at the same time.
+     */
+    public DuckDBFleetMigrator(Configuration configuration, int parallelism) {
+        if (parallelism < 1) {
+            throw new FlywayException("Invalid parallelism: " + parallelism + " (must be a positive integer)");
+        }
+        this.configuration = configuration;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Migrates every database file of a directory matching a glob, e.g. {@code *.duckdb}.
+     *
+     * @return The outcome for each file.
+     */
+    public DuckDBFleetMigrationReport migrate(Path directory, String glob) {
+        final var files = new ArrayList<Path>();
+        try (final var stream = Files.newDirectoryStream(directory, glob)) {
+            stream.forEach(files::add);
+        } catch (IOException e) {
+            throw new FlywayException("Unable to list DuckDB database files in " + directory, e);
+        }
+        files.sort(null);
+        return migrate(files);
+    }
+
+    /**
+     * Migrates all the given database files.
+     *
+     * @return The outcome for each file.
+     */
+    public DuckDBFleetMigrationReport migrate(Collection<Path> files) {
+        final var report = new DuckDBFleetMigrationReport();
+        if (files.isEmpty()) {
+            return report;
+        }
+
+        final var scanner = new Scanner<>(JavaMigration.class, false, new ResourceNameCache(), new LocationScannerCache(), configuration);
+        final var resourceProvider = new SharedResourceProvider(
+            configuration.getResourceProvider() != null ? configuration.getResourceProvider() : scanner);
+
+        LOG.info("Migrating " + files.size() + " DuckDB database file(s) with a parallelism of " + parallelism);
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, files.size()));
+        try {
+            final var futures = new ArrayList<Future<?>>();
+            for (final var file : files) {
+                futures.add(executor.submit(() -> migrate(file, scanner, resourceProvider, report)));
+            }
+            for (final var future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlywayException("Interrupted while migrating DuckDB database files", e);
+        } catch (ExecutionException e) {
+            throw new FlywayException("Unexpected error while migrating DuckDB database files", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LOG.info(report.getSummary());
+        return report;
+    }
+
+    private void migrate(Path file, Scanner<JavaMigration> scanner, ResourceProvider resourceProvider, DuckDBFleetMigrationReport report) {
+        final var start = System.nanoTime();
+        try {
+            final var result = Flyway.configure(configuration.getClassLoader())
+                .configuration(configuration)
+                .dataSource(URL_PREFIX + file, "", "")
+                .resourceProvider(resourceProvider)
+                .javaMigrationClassProvider(scanner)
+                .load()
+                .migrate();
+            report.succeeded(file, result, elapsedMillis(start));
+        } catch (RuntimeException e) {
+            LOG.warn("Migration of DuckDB database file " + file + " failed: " + e.getMessage());
+            report.failed(file, e, elapsedMillis(start));
+        }
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * Serves the resources found by a single scan, each read from its location only once.
+     */
+    private static final class SharedResourceProvider implements ResourceProvider {
+        private final ResourceProvider delegate;
+        private final Map<String, LoadableResource> resources = new ConcurrentHashMap<>();
+
+        private SharedResourceProvider(ResourceProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public LoadableResource getResource(String name) {
+            final var resource = delegate.getResource(name);
+            return resource == null ? null : share(resource);
+        }
+
+        @Override
+        public Collection<LoadableResource> getResources(String prefix, String[] suffixes) {
+            final var shared = new ArrayList<LoadableResource>();
+            for (final var resource : delegate.getResources(prefix, suffixes)) {
+                shared.add(share(resource));
+            }
+            return shared;
+        }
+
+        private LoadableResource share(LoadableResource resource) {
+            return resources.computeIfAbsent(resource.getAbsolutePath(), path -> new SharedResource(resource));
+        }
+    }
+
+    private static final class SharedResource extends LoadableResource {
+        private final LoadableResource resource;
+        private final String content;
+
+        private SharedResource(LoadableResource resource) {
+            this.resource = resource;
+            try (Reader reader = resource.read()) {
+                final var writer = new StringWriter();
+                reader.transferTo(writer);
+                this.content = writer.toString();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Unable to read " + resource.getAbsolutePath(), e);
+            }
+        }
+
+        @Override
+        public Reader read() {
+            return new StringReader(content);
+        }
+
+        @Override
+        public String getAbsolutePath() {
+            return resource.getAbsolutePath();
+        }
+
+        @Override
+        public String getAbsolutePathOnDisk() {
+            return resource.getAbsolutePathOnDisk();
+        }
+
+        @Override
+        public String getFilename() {
+            return resource.getFilename();
+        }
+
+        @Override
+        public String getRelativePath() {
+            return resource.getRelativePath();
+        }
+    }
+}
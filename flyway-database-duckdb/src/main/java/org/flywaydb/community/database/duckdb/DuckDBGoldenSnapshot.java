@@ -0,0 +1,214 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.MigrationInfo;
+import org.flywaydb.core.api.callback.Event;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.resolver.ChecksumCalculator;
+import org.flywaydb.core.internal.resource.ResourceNameParser;
+import org.flywaydb.core.internal.scanner.LocationScannerCache;
+import org.flywaydb.core.internal.scanner.ResourceNameCache;
+import org.flywaydb.core.internal.scanner.Scanner;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Migrates fresh DuckDB databases by restoring a golden snapshot of a previous migration with the same migrations and
+ * configuration, instead of replaying every migration.
+ * <p>
+ * The snapshot is keyed by a fingerprint of the resolved migrations (version, description, type, script and checksum),
+ * of the SQL callbacks and of the configuration affecting their outcome. Migrations without a checksum, such as Java
+ * migrations not overriding {@link JavaMigration#getChecksum()}, cannot be fingerprinted: databases using them are
+ * migrated as usual and never snapshotted. The snapshot is written with {@code COPY FROM DATABASE} after a successful
+ * migration, which also compacts it, and restored the same way in a single transaction, so that it works while other
+ * connections of the process hold the target database open. Databases which already have applied migrations are
+ * migrated as usual.
+ */
+public class DuckDBGoldenSnapshot {
+
+    private static final Log LOG = LogFactory.getLog(DuckDBGoldenSnapshot.class);
+
+    private static final String SNAPSHOT_CATALOG = "flyway_golden_snapshot";
+
+    private final Configuration configuration;
+    private final Path snapshotDirectory;
+
+    /**
+     * @param configuration     The configuration of the database to migrate.
+     * @param snapshotDirectory The directory holding the snapshots. It is created if necessary.
+     */
+    public DuckDBGoldenSnapshot(Configuration configuration, Path snapshotDirectory) {
+        this.configuration = configuration;
+        this.snapshotDirectory = snapshotDirectory;
+    }
+
+    /**
+     * Migrates the database, restoring a snapshot if possible and recording one otherwise.
+     *
+     * @return {@code true} if the database was restored from a snapshot.
+     */
+    public boolean migrate() {
+        final var flyway = Flyway.configure(configuration.getClassLoader()).configuration(configuration).load();
+        final var info = flyway.info();
+        if (info.applied().length > 0) {
+            flyway.migrate();
+            return false;
+        }
+
+        final var unfingerprinted = Arrays.stream(info.all()).filter(migration -> migration.getChecksum() == null).findFirst();
+        if (unfingerprinted.isPresent()) {
+            LOG.warn("Not using a snapshot as migration " + unfingerprinted.get().getScript() + " has no checksum");
+            flyway.migrate();
+            return false;
+        }
+
+        final var snapshot = snapshotDirectory.resolve("flyway-" + fingerprint(info.all()) + ".duckdb");
+        if (Files.exists(snapshot)) {
+            copyDatabase(snapshot, true);
+            LOG.info("Restored " + info.all().length + " migration(s) from snapshot " + snapshot);
+            return true;
+        }
+
+        if (flyway.migrate().success) {
+            record(snapshot);
+        }
+        return false;
+    }
+
+    private String fingerprint(MigrationInfo[] migrations) {
+        final var fingerprint = new StringBuilder();
+        for (final var migration : migrations) {
+            fingerprint.append(migration.getType()).append('|')
+                .append(migration.getVersion()).append('|')
+                .append(migration.getDescription()).append('|')
+                .append(migration.getScript()).append('|')
+                .append(migration.getChecksum()).append('\n');
+        }
+        appendCallbacks(fingerprint);
+        fingerprint.append(configuration.getDefaultSchema()).append('|')
+            .append(String.join(",", configuration.getSchemas())).append('|')
+            .append(configuration.getTable()).append('|')
+            .append(new TreeMap<>(configuration.getPlaceholders()));
+
+        try {
+            final var digest = MessageDigest.getInstance("SHA-256").digest(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new FlywayException("Unable to compute migration fingerprint", e);
+        }
+    }
+
+    /**
+     * Appends the name and checksum of every SQL callback script, as well as the class of every Java callback.
+     */
+    private void appendCallbacks(StringBuilder fingerprint) {
+        final var resourceProvider = configuration.getResourceProvider() != null
+            ? configuration.getResourceProvider()
+            : new Scanner<>(JavaMigration.class, false, new ResourceNameCache(), new LocationScannerCache(), configuration);
+        final var resourceNameParser = new ResourceNameParser(configuration);
+        resourceProvider.getResources("", configuration.getSqlMigrationSuffixes()).stream()
+            .filter(resource -> {
+                final var resourceName = resourceNameParser.parse(resource.getFilename());
+                return resourceName.isValid() && Event.fromId(resourceName.getPrefix()) != null;
+            })
+            .sorted(Comparator.comparing(LoadableResource::getRelativePath))
+            .forEach(resource -> fingerprint.append(resource.getRelativePath()).append('|')
+                .append(ChecksumCalculator.calculate(resource)).append('\n'));
+        for (final var callback : configuration.getCallbacks()) {
+            fingerprint.append(callback.getClass().getName()).append('\n');
+        }
+    }
+
+    private void record(Path snapshot) {
+        // Written under a unique name and moved in place, so that concurrent runs never see a partial snapshot
+        final var partialSnapshot = snapshot.resolveSibling(snapshot.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            Files.createDirectories(snapshotDirectory);
+            copyDatabase(partialSnapshot, false);
+            Files.move(partialSnapshot, snapshot, StandardCopyOption.ATOMIC_MOVE);
+            LOG.info("Recorded snapshot " + snapshot);
+        } catch (FileAlreadyExistsException e) {
+            LOG.debug("Snapshot " + snapshot + " has been recorded concurrently");
+        } catch (IOException e) {
+            throw new FlywayException("Unable to record snapshot " + snapshot, e);
+        } finally {
+            try {
+                Files.deleteIfExists(partialSnapshot);
+            } catch (IOException e) {
+                LOG.warn("Unable to delete " + partialSnapshot + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Copies the whole snapshot into the database, or the whole database into the snapshot.
+     */
+    private void copyDatabase(Path snapshot, boolean restore) {
+        try (final var connection = configuration.getDataSource().getConnection()) {
+            final var jdbcTemplate = new JdbcTemplate(connection, new DuckDBDatabaseType());
+            final var database = "\"" + jdbcTemplate.queryForString("SELECT current_database()").replace("\"", "\"\"") + "\"";
+            jdbcTemplate.execute("ATTACH '%s' AS %s%s".formatted(
+                snapshot.toAbsolutePath().toString().replace("'", "''"), SNAPSHOT_CATALOG, restore ? " (READ_ONLY)" : ""));
+            try {
+                if (restore) {
+                    // A failed restore must not leave the database half populated, as it would then count as migrated
+                    connection.setAutoCommit(false);
+                    try {
+                        jdbcTemplate.execute("COPY FROM DATABASE %s TO %s".formatted(SNAPSHOT_CATALOG, database));
+                        connection.commit();
+                    } catch (SQLException e) {
+                        connection.rollback();
+                        throw e;
+                    } finally {
+                        connection.setAutoCommit(true);
+                    }
+                } else {
+                    jdbcTemplate.execute("COPY FROM DATABASE %s TO %s".formatted(database, SNAPSHOT_CATALOG));
+                }
+            } finally {
+                jdbcTemplate.execute("DETACH " + SNAPSHOT_CATALOG);
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to " + (restore ? "restore" : "record") + " snapshot " + snapshot, e);
+        }
+    }
+}
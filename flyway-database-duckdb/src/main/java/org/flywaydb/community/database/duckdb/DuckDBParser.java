@@ -22,10 +22,109 @@ package org.flywaydb.community.database.duckdb;
 import org.flywaydb.core.api.configuration.Configuration;
 import org.flywaydb.core.internal.parser.Parser;
 import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.parser.PeekingReader;
+import org.flywaydb.core.internal.parser.Recorder;
+import org.flywaydb.core.internal.parser.StatementType;
+import org.flywaydb.core.internal.parser.Token;
+import org.flywaydb.core.internal.parser.TokenType;
+import org.flywaydb.core.internal.sqlscript.Delimiter;
+import org.flywaydb.core.internal.sqlscript.ParsedSqlStatement;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
 
 public class DuckDBParser extends Parser {
 
+    private static final String TABLE_NAME = "((?:\"[^\"]*\"|[^\\s(\"])+)";
+    private static final Pattern COPY_FROM = Pattern.compile(
+        "^COPY\\s+" + TABLE_NAME + "(?:\\s*\\([^)]*\\))?\\s+FROM\\s+(?!DATABASE\\b)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_TABLE_AS = Pattern.compile(
+        "^CREATE\\s+(?:OR\\s+REPLACE\\s+)?(?:TEMP(?:ORARY)?\\s+)?TABLE\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?" + TABLE_NAME + "(?:\\s*\\([^)]*\\))?\\s+AS\\b",
+        Pattern.CASE_INSENSITIVE);
+    private static final Pattern INSERT_INTO = Pattern.compile(
+        "^INSERT\\s+(?:OR\\s+\\w+\\s+)?INTO\\s+" + TABLE_NAME, Pattern.CASE_INSENSITIVE);
+    private static final Set<String> FILE_SCAN_FUNCTIONS = Set.of(
+        "READ_PARQUET", "PARQUET_SCAN", "READ_CSV", "READ_CSV_AUTO", "READ_JSON", "READ_JSON_AUTO", "READ_JSON_OBJECTS",
+        "READ_NDJSON", "READ_NDJSON_AUTO", "READ_NDJSON_OBJECTS");
+
     protected DuckDBParser(Configuration configuration, ParsingContext parsingContext) {
         super(configuration, parsingContext, 2);
     }
+
+    /**
+     * Statements loading rows from external files are classified as {@link DuckDBBulkLoadStatement}s, so that they can
+     * be executed with the bulk load settings.
+     */
+    @Override
+    protected ParsedSqlStatement createStatement(PeekingReader reader, Recorder recorder, int statementPos, int statementLine,
+                                                 int statementCol, int nonCommentPartPos, int nonCommentPartLine,
+                                                 int nonCommentPartCol, StatementType statementType, boolean canExecuteInTransaction,
+                                                 Delimiter delimiter, String sql, List<Token> tokens, boolean batchable) throws IOException {
+        final var statement = stripLeadingComments(sql);
+
+        final var copy = COPY_FROM.matcher(statement);
+        if (copy.find()) {
+            return new DuckDBBulkLoadStatement(statementPos, statementLine, statementCol, sql, delimiter, canExecuteInTransaction,
+                batchable, DuckDBBulkLoadStatement.Kind.COPY, copy.group(1));
+        }
+        if (isFileScan(tokens)) {
+            final var createTableAs = CREATE_TABLE_AS.matcher(statement);
+            if (createTableAs.find()) {
+                return new DuckDBBulkLoadStatement(statementPos, statementLine, statementCol, sql, delimiter, canExecuteInTransaction,
+                    batchable, DuckDBBulkLoadStatement.Kind.CREATE_TABLE_AS, createTableAs.group(1));
+            }
+            final var insert = INSERT_INTO.matcher(statement);
+            if (insert.find()) {
+                return new DuckDBBulkLoadStatement(statementPos, statementLine, statementCol, sql, delimiter, canExecuteInTransaction,
+                    batchable, DuckDBBulkLoadStatement.Kind.INSERT, insert.group(1));
+            }
+        }
+        return super.createStatement(reader, recorder, statementPos, statementLine, statementCol, nonCommentPartPos,
+            nonCommentPartLine, nonCommentPartCol, statementType, canExecuteInTransaction, delimiter, sql, tokens, batchable);
+    }
+
+    /**
+     * Looks for a file reading function or a {@code FROM 'file'} clause among the tokens, so that text in comments and
+     * string literals is ignored.
+     */
+    private static boolean isFileScan(List<Token> tokens) {
+        for (var i = 0; i < tokens.size(); i++) {
+            final var token = tokens.get(i);
+            if (token.getType() != TokenType.KEYWORD) {
+                continue;
+            }
+            if (FILE_SCAN_FUNCTIONS.contains(token.getText().toUpperCase(Locale.ROOT))) {
+                return true;
+            }
+            if ("FROM".equalsIgnoreCase(token.getText()) && i + 1 < tokens.size() && tokens.get(i + 1).getType() == TokenType.STRING) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The SQL of a statement without the comments the parser keeps in front of it: {@code --} line comments,
+     * as recognized by {@link #isSingleLineComment}, and block comments.
+     */
+    static String stripLeadingComments(String sql) {
+        int pos = 0;
+        while (true) {
+            while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+                pos++;
+            }
+            if (sql.startsWith("--", pos)) {
+                int end = sql.indexOf('\n', pos);
+                pos = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", pos)) {
+                int end = sql.indexOf("*/", pos + 2);
+                pos = end < 0 ? sql.length() : end + 2;
+            } else {
+                return sql.substring(pos);
+            }
+        }
+    }
 }
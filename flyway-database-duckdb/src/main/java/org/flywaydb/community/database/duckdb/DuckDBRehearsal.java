@@ -0,0 +1,275 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Rehearses the pending migrations of a DuckDB database file before applying them.
+ * <p>
+ * The file is attached read-only and its schema, along with the schema history and optionally a sample of the rows
+ * of every table, is copied into an in-memory database with {@code COPY FROM DATABASE ... (SCHEMA)}. The pending
+ * migrations are then applied to that copy, so that their failures and timings are known without ever writing to the
+ * file. Migrations depending on the actual data may still behave differently on the file itself.
+ */
+public class DuckDBRehearsal {
+
+    private static final Log LOG = LogFactory.getLog(DuckDBRehearsal.class);
+
+    private static final String URL_PREFIX = "jdbc:duckdb:";
+    private static final String SOURCE_CATALOG = "flyway_rehearsal_source";
+
+    private final Configuration configuration;
+    private final int sampleRows;
+
+    /**
+     * @param configuration The configuration of the migrations. Its data source is replaced by the rehearsal database.
+     * @param sampleRows    The number of rows sampled from every table into the rehearsal database, {@code 0} to
+     *                      copy the schema only.
+     */
+    public DuckDBRehearsal(Configuration configuration, int sampleRows) {
+        if (sampleRows < 0) {
+            throw new FlywayException("Invalid number of sample rows: " + sampleRows + " (must be a positive integer or 0)");
+        }
+        this.configuration = configuration;
+        this.sampleRows = sampleRows;
+    }
+
+    /**
+     * Applies the pending migrations to an in-memory copy of the database file, which is only ever opened read-only.
+     *
+     * @return The outcome of the rehearsal.
+     */
+    public DuckDBRehearsalReport rehearse(Path databaseFile) {
+        if (!Files.isRegularFile(databaseFile)) {
+            throw new FlywayException("DuckDB database file " + databaseFile + " does not exist");
+        }
+
+        // A named in-memory database is shared by every connection of the process, as long as one of them is open
+        final var url = URL_PREFIX + ":memory:flyway_rehearsal_" + UUID.randomUUID().toString().replace("-", "");
+        try (final var connection = DriverManager.getConnection(url, "", "")) {
+            final var copyStart = System.nanoTime();
+            copy(new JdbcTemplate(connection, new DuckDBDatabaseType()), databaseFile);
+            final var copyMillis = elapsedMillis(copyStart);
+
+            final var migrateStart = System.nanoTime();
+            try {
+                final var result = Flyway.configure(configuration.getClassLoader())
+                    .configuration(configuration)
+                    .dataSource(url, "", "")
+                    .load()
+                    .migrate();
+                final var report = DuckDBRehearsalReport.succeeded(databaseFile, result, copyMillis, elapsedMillis(migrateStart));
+                LOG.info(report.getSummary());
+                return report;
+            } catch (RuntimeException e) {
+                final var report = DuckDBRehearsalReport.failed(databaseFile, e, copyMillis, elapsedMillis(migrateStart));
+                LOG.warn(report.getSummary());
+                return report;
+            }
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to prepare the rehearsal of " + databaseFile, e);
+        }
+    }
+
+    /**
+     * Rehearses the pending migrations and, only if the rehearsal succeeds, applies them to the database file.
+     *
+     * @return The result of the migration of the database file.
+     * @throws FlywayException if the rehearsal failed. The database file is left untouched.
+     */
+    public MigrateResult migrate(Path databaseFile) {
+        final var report = rehearse(databaseFile);
+        if (!report.isSuccess()) {
+            throw new FlywayException("Not migrating " + databaseFile + " as its rehearsal failed: " + report.getFailure().getMessage(),
+                report.getFailure());
+        }
+        return Flyway.configure(configuration.getClassLoader())
+            .configuration(configuration)
+            .dataSource(URL_PREFIX + databaseFile, "", "")
+            .load()
+            .migrate();
+    }
+
+    private void copy(JdbcTemplate jdbcTemplate, Path databaseFile) throws SQLException {
+        final var database = quote(jdbcTemplate.queryForString("SELECT current_database()"));
+        jdbcTemplate.execute("ATTACH '%s' AS %s (READ_ONLY)".formatted(
+            databaseFile.toAbsolutePath().toString().replace("'", "''"), SOURCE_CATALOG));
+        try {
+            jdbcTemplate.execute("COPY FROM DATABASE %s TO %s (SCHEMA)".formatted(SOURCE_CATALOG, database));
+
+            for (final var schema : jdbcTemplate.queryForStringList(
+                "SELECT schema_name FROM duckdb_tables() WHERE database_name = ? AND table_name = ?",
+                SOURCE_CATALOG, configuration.getTable())) {
+                copyRows(jdbcTemplate, database, schema, configuration.getTable(), "SELECT * FROM %s.%s.%s".formatted(
+                    SOURCE_CATALOG, quote(schema), quote(configuration.getTable())));
+            }
+            if (sampleRows > 0) {
+                copySamples(jdbcTemplate, database);
+            }
+        } finally {
+            // Flyway must not see the tables of the source database
+            jdbcTemplate.execute("DETACH " + SOURCE_CATALOG);
+        }
+    }
+
+    /**
+     * Samples the first rows of every table in scan order, referenced tables first. Only the rows whose foreign keys reference rows already
+     * copied are sampled from a referencing table, so that the sample satisfies its foreign keys. Rows of a table
+     * referencing itself are only sampled if they reference no other row. The tables of a schema whose foreign keys
+     * form a cycle are left empty, as are tables whose sample still violates a constraint.
+     */
+    private void copySamples(JdbcTemplate jdbcTemplate, String database) throws SQLException {
+        final var referencingTables = new TreeMap<String, TreeMap<String, Set<String>>>();
+        jdbcTemplate.query("""
+                SELECT tbls.schema_name, tbls.table_name, fks.table_name AS referencing_table
+                FROM duckdb_tables() tbls
+                LEFT JOIN duckdb_constraints() fks
+                    ON fks.constraint_type = 'FOREIGN KEY'
+                    AND fks.database_name = tbls.database_name
+                    AND fks.schema_name = tbls.schema_name
+                    AND fks.referenced_table = tbls.table_name
+                    AND fks.table_name != tbls.table_name
+                WHERE tbls.database_name = ?;
+            """,
+            rs -> {
+                final var referencing = referencingTables.computeIfAbsent(rs.getString("schema_name"), schema -> new TreeMap<>())
+                    .computeIfAbsent(rs.getString("table_name"), table -> new TreeSet<>());
+                final var referencingTable = rs.getString("referencing_table");
+                if (referencingTable != null) {
+                    referencing.add(referencingTable);
+                }
+                return null;
+            },
+            SOURCE_CATALOG);
+
+        final var foreignKeys = new HashMap<String, Map<String, Map<Integer, ForeignKey>>>();
+        jdbcTemplate.query("""
+                SELECT schema_name, table_name, constraint_index, referenced_table,
+                    unnest(constraint_column_names) AS column_name,
+                    unnest(referenced_column_names) AS referenced_column_name
+                FROM duckdb_constraints()
+                WHERE database_name = ? AND constraint_type = 'FOREIGN KEY';
+            """,
+            rs -> {
+                final var referencedTable = rs.getString("referenced_table");
+                foreignKeys.computeIfAbsent(rs.getString("schema_name"), schema -> new HashMap<>())
+                    .computeIfAbsent(rs.getString("table_name"), table -> new TreeMap<>())
+                    .computeIfAbsent(rs.getInt("constraint_index"), index -> new ForeignKey(referencedTable))
+                    .addColumn(rs.getString("column_name"), rs.getString("referenced_column_name"));
+                return null;
+            },
+            SOURCE_CATALOG);
+
+        for (final var schema : referencingTables.entrySet()) {
+            final List<List<String>> waves;
+            try {
+                waves = DuckDBSchema.computeDropWaves(schema.getKey(), schema.getValue());
+            } catch (IllegalStateException e) {
+                LOG.warn("Not sampling the rows of schema " + schema.getKey() + ": " + e.getMessage());
+                continue;
+            }
+            final var schemaForeignKeys = foreignKeys.getOrDefault(schema.getKey(), Map.of());
+            for (var i = waves.size() - 1; i >= 0; i--) {
+                for (final var table : waves.get(i)) {
+                    if (table.equals(configuration.getTable())) {
+                        continue;
+                    }
+                    final var conditions = schemaForeignKeys.getOrDefault(table, Map.of()).values().stream()
+                        .map(foreignKey -> foreignKey.toCondition(database, schema.getKey()))
+                        .toList();
+                    final var source = "SELECT * FROM %s.%s.%s sampled%s".formatted(SOURCE_CATALOG, quote(schema.getKey()), quote(table),
+                        conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions));
+                    try {
+                        // A bounded scan stops reading once enough rows matched, where USING SAMPLE ... ROWS is a
+                        // reservoir sample reading the whole table. The rows are the first ones in scan order rather
+                        // than random ones, which is enough to exercise the migrations.
+                        copyRows(jdbcTemplate, database, schema.getKey(), table, "%s LIMIT %d".formatted(source, sampleRows));
+                    } catch (SQLException e) {
+                        LOG.warn("Unable to sample rows of " + schema.getKey() + "." + table + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    private static void copyRows(JdbcTemplate jdbcTemplate, String database, String schema, String table, String query) throws SQLException {
+        jdbcTemplate.execute("INSERT INTO %s.%s.%s %s".formatted(database, quote(schema), quote(table), query));
+    }
+
+    private static String quote(String identifier) {
+        return "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    private static long elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1_000_000;
+    }
+
+    /**
+     * A foreign key of a sampled table, satisfied by the rows whose columns are either {@code NULL} or match a row of
+     * the referenced table already copied into the rehearsal database.
+     */
+    private static final class ForeignKey {
+        private final String referencedTable;
+        private final List<String> columns = new ArrayList<>();
+        private final List<String> referencedColumns = new ArrayList<>();
+
+        private ForeignKey(String referencedTable) {
+            this.referencedTable = referencedTable;
+        }
+
+        private void addColumn(String column, String referencedColumn) {
+            columns.add(column);
+            referencedColumns.add(referencedColumn);
+        }
+
+        private String toCondition(String database, String schema) {
+            final var conditions = new ArrayList<String>();
+            final var matches = new ArrayList<String>();
+            for (var i = 0; i < columns.size(); i++) {
+                conditions.add("sampled." + quote(columns.get(i)) + " IS NULL");
+                matches.add("copied." + quote(referencedColumns.get(i)) + " = sampled." + quote(columns.get(i)));
+            }
+            conditions.add("EXISTS (SELECT 1 FROM %s.%s.%s copied WHERE %s)".formatted(
+                database, quote(schema), quote(referencedTable), String.join(" AND ", matches)));
+            return "(" + String.join(" OR ", conditions) + ")";
+        }
+    }
+}
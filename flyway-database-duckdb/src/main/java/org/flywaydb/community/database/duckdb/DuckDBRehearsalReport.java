@@ -0,0 +1,104 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.api.output.MigrateResult;
+
+import java.nio.file.Path;
+
+/**
+ * The outcome of a {@link DuckDBRehearsal}.
+ */
+public class DuckDBRehearsalReport {
+
+    private final Path databaseFile;
+    private final MigrateResult result;
+    private final RuntimeException failure;
+    private final long copyMillis;
+    private final long migrateMillis;
+
+    private DuckDBRehearsalReport(Path databaseFile, MigrateResult result, RuntimeException failure, long copyMillis, long migrateMillis) {
+        this.databaseFile = databaseFile;
+        this.result = result;
+        this.failure = failure;
+        this.copyMillis = copyMillis;
+        this.migrateMillis = migrateMillis;
+    }
+
+    static DuckDBRehearsalReport succeeded(Path databaseFile, MigrateResult result, long copyMillis, long migrateMillis) {
+        return new DuckDBRehearsalReport(databaseFile, result, null, copyMillis, migrateMillis);
+    }
+
+    static DuckDBRehearsalReport failed(Path databaseFile, RuntimeException failure, long copyMillis, long migrateMillis) {
+        return new DuckDBRehearsalReport(databaseFile, null, failure, copyMillis, migrateMillis);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+
+    /**
+     * @return The result of the rehearsed migrations, {@code null} if they failed.
+     */
+    public MigrateResult getResult() {
+        return result;
+    }
+
+    /**
+     * @return The failure of the rehearsed migrations, {@code null} if they succeeded.
+     */
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    /**
+     * @return The time spent copying the database file into the rehearsal database.
+     */
+    public long getCopyMillis() {
+        return copyMillis;
+    }
+
+    /**
+     * @return The time spent applying the pending migrations to the rehearsal database.
+     */
+    public long getMigrateMillis() {
+        return migrateMillis;
+    }
+
+    public String getSummary() {
+        if (failure != null) {
+            return "Rehearsal of " + databaseFile + " failed after " + migrateMillis + " ms (copy: " + copyMillis + " ms): "
+                + failure.getMessage();
+        }
+        final var summary = new StringBuilder("Rehearsed " + result.migrationsExecuted + " migration(s) of " + databaseFile
+            + " in " + migrateMillis + " ms (copy: " + copyMillis + " ms)");
+        for (final var migration : result.migrations) {
+            summary.append("\n  ").append(migration.version).append(' ').append(migration.description)
+                .append(": ").append(migration.executionTime).append(" ms");
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getSummary();
+    }
+}
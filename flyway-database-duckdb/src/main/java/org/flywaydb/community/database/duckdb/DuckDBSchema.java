@@ -23,7 +23,12 @@ import org.flywaydb.core.internal.database.base.Schema;
 import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 public class DuckDBSchema extends Schema<DuckDBDatabase, DuckDBTable> {
 
@@ -55,33 +60,21 @@ public class DuckDBSchema extends Schema<DuckDBDatabase, DuckDBTable> {
 
     @Override
     protected void doClean() throws SQLException {
+        // Computed first, so that a foreign key cycle is reported before anything is dropped
+        final var tableWaves = computeDropWaves(name, getReferencingTables());
+
         dropAll("MACRO", getAllMacros());
         dropAll("SEQUENCE", getAllObjectsNames("sequence_name", "duckdb_sequences()"));
         dropAll("VIEW", getAllViews());
 
-        var tables = getAllTables();
-        while (!tables.isEmpty()) {
-            final var tablesWithoutIncomingRefs = tables.stream()
-                .filter(table -> table.incomingRefsCount == 0)
-                .map(table -> table.tableName)
-                .toList();
-            if (tablesWithoutIncomingRefs.isEmpty()) {
-                throw new IllegalStateException("""
-                    Cannot drop all tables in schema %s.
-                    Duckdb does not support DROP TABLE if the table has incoming references.
-                    All existing tables have such references.
-                    """.formatted(name)
-                );
-            }
-            dropAll("TABLE", tablesWithoutIncomingRefs);
-            tables = getAllTables();
+        for (final var wave : tableWaves) {
+            dropAll("TABLE", wave);
         }
     }
 
     @Override
     protected DuckDBTable[] doAllTables() throws SQLException {
-        return getAllTables().stream()
-            .map(table -> table.tableName)
+        return getAllObjectsNames("table_name", "duckdb_tables()").stream()
             .map(this::getTable)
             .toList()
             .toArray(new DuckDBTable[]{});
@@ -108,35 +101,67 @@ public class DuckDBSchema extends Schema<DuckDBDatabase, DuckDBTable> {
         return jdbcTemplate.queryForStringList(sql, name);
     }
 
-    private List<Table> getAllTables() throws SQLException {
+    /**
+     * Fetches every table of the schema along with the other tables referencing it through a foreign key, in a single
+     * catalog query. Attached databases may have a schema of the same name, so only the current database is read.
+     */
+    private Map<String, Set<String>> getReferencingTables() throws SQLException {
         final var sql = """
-            SELECT
-                table_name,
-                (
-                    SELECT count(*)
-                    FROM information_schema.referential_constraints rc
-                    JOIN information_schema.key_column_usage to_column_usage
-                        ON rc.unique_constraint_name = to_column_usage.constraint_name
-                        AND rc.unique_constraint_schema = to_column_usage.constraint_schema
-                    JOIN information_schema.key_column_usage from_column_usage
-                        ON rc.constraint_name = from_column_usage.constraint_name
-                        AND rc.constraint_schema = from_column_usage.constraint_schema
-                    WHERE to_column_usage.constraint_schema = ?
-                        AND to_column_usage.table_name = tbls.table_name
-                        AND from_column_usage.table_name != tbls.table_name
-                ) AS incoming_refs_count
+            SELECT tbls.table_name, fks.table_name AS referencing_table
             FROM duckdb_tables() tbls
-            WHERE tbls.schema_name = ?;
+            LEFT JOIN duckdb_constraints() fks
+                ON fks.constraint_type = 'FOREIGN KEY'
+                AND fks.database_name = tbls.database_name
+                AND fks.schema_name = tbls.schema_name
+                AND fks.referenced_table = tbls.table_name
+                AND fks.table_name != tbls.table_name
+            WHERE tbls.database_name = current_database()
+                AND tbls.schema_name = ?;
         """;
-        return jdbcTemplate.query(
+        final var referencingTables = new TreeMap<String, Set<String>>();
+        jdbcTemplate.query(
             sql,
-            rs -> new Table(rs.getString("table_name"), rs.getInt("incoming_refs_count")),
-            name,
+            rs -> {
+                final var referencing = referencingTables.computeIfAbsent(rs.getString("table_name"), table -> new TreeSet<>());
+                final var referencingTable = rs.getString("referencing_table");
+                if (referencingTable != null) {
+                    referencing.add(referencingTable);
+                }
+                return null;
+            },
             name
         );
+        return referencingTables;
     }
 
-    private record Table(String tableName, int incomingRefsCount) {
+    /**
+     * Sorts the tables into waves which can be dropped one after another: no table is referenced by a table of its own
+     * or a later wave.
+     *
+     * @param schema            The name of the schema, for error reporting.
+     * @param referencingTables The tables of the schema, each with the other tables referencing it.
+     * @throws IllegalStateException if some tables reference each other in a cycle, before anything is dropped.
+     */
+    static List<List<String>> computeDropWaves(String schema, Map<String, Set<String>> referencingTables) {
+        final var waves = new ArrayList<List<String>>();
+        final var remaining = new TreeMap<>(referencingTables);
+        while (!remaining.isEmpty()) {
+            final var wave = remaining.entrySet().stream()
+                .filter(table -> table.getValue().stream().noneMatch(remaining::containsKey))
+                .map(Map.Entry::getKey)
+                .toList();
+            if (wave.isEmpty()) {
+                throw new IllegalStateException("""
+                    Cannot drop all tables in schema %s.
+                    Duckdb does not support DROP TABLE if the table has incoming references.
+                    The tables %s reference each other.
+                    """.formatted(schema, remaining.keySet())
+                );
+            }
+            wave.forEach(remaining::remove);
+            waves.add(wave);
+        }
+        return waves;
     }
 
     private List<String> getAllObjectsNames(String catalogNameField, String catalogTable) throws SQLException {
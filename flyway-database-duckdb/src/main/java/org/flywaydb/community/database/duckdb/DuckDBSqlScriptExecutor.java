@@ -0,0 +1,116 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.api.logging.Log;
+import org.flywaydb.core.api.logging.LogFactory;
+import org.flywaydb.core.internal.callback.CallbackExecutor;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Result;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.jdbc.StatementInterceptor;
+import org.flywaydb.core.internal.sqlscript.DefaultSqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Executes {@link DuckDBBulkLoadStatement}s with the configured bulk load settings, e.g. more threads or
+ * {@code preserve_insertion_order} disabled, restoring the previous settings afterwards. The throughput of every bulk
+ * load is logged.
+ * <p>
+ * {@code threads} and {@code memory_limit} are not per connection: DuckDB applies them to the database instance shared
+ * by the process, so the application's other connections to the same file also run with the bulk load values while a
+ * bulk load statement executes.
+ */
+public class DuckDBSqlScriptExecutor extends DefaultSqlScriptExecutor {
+
+    private static final Log LOG = LogFactory.getLog(DuckDBSqlScriptExecutor.class);
+
+    public DuckDBSqlScriptExecutor(JdbcTemplate jdbcTemplate, CallbackExecutor callbackExecutor, boolean undo,
+                                   boolean batch, boolean outputQueryResults, StatementInterceptor statementInterceptor) {
+        super(jdbcTemplate, callbackExecutor, undo, batch, outputQueryResults, statementInterceptor);
+    }
+
+    @Override
+    protected Results executeStatement(JdbcTemplate jdbcTemplate, SqlScript sqlScript, SqlStatement sqlStatement, Configuration config) {
+        if (!(sqlStatement instanceof DuckDBBulkLoadStatement bulkLoad)) {
+            return super.executeStatement(jdbcTemplate, sqlScript, sqlStatement, config);
+        }
+
+        final var settings = config.getPluginRegister().getPlugin(DuckDBConfigurationExtension.class).getBulkLoadSettings();
+        final var originalSettings = applySettings(jdbcTemplate, settings);
+        try {
+            final var start = System.nanoTime();
+            final var results = super.executeStatement(jdbcTemplate, sqlScript, sqlStatement, config);
+            logThroughput(jdbcTemplate, bulkLoad, results, System.nanoTime() - start);
+            return results;
+        } finally {
+            restoreSettings(jdbcTemplate, originalSettings);
+        }
+    }
+
+    private static Map<String, String> applySettings(JdbcTemplate jdbcTemplate, Map<String, String> settings) {
+        final var originalSettings = new LinkedHashMap<String, String>();
+        try {
+            for (final var setting : settings.entrySet()) {
+                final var original = jdbcTemplate.queryForString("SELECT current_setting(?)", setting.getKey());
+                jdbcTemplate.execute("SET %s = %s".formatted(setting.getKey(), setting.getValue()));
+                originalSettings.put(setting.getKey(), original);
+            }
+        } catch (SQLException e) {
+            restoreSettings(jdbcTemplate, originalSettings);
+            throw new FlywaySqlException("Unable to apply DuckDB bulk load settings", e);
+        }
+        return originalSettings;
+    }
+
+    private static void restoreSettings(JdbcTemplate jdbcTemplate, Map<String, String> originalSettings) {
+        for (final var setting : originalSettings.entrySet()) {
+            try {
+                jdbcTemplate.execute("SET %s = '%s'".formatted(setting.getKey(), setting.getValue().replace("'", "''")));
+            } catch (SQLException e) {
+                // Do not hide the failure of the statement itself
+                LOG.warn("Unable to restore DuckDB setting " + setting.getKey() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private static void logThroughput(JdbcTemplate jdbcTemplate, DuckDBBulkLoadStatement bulkLoad, Results results, long nanos) {
+        var rows = results.getResults().stream().mapToLong(Result::updateCount).filter(count -> count >= 0).sum();
+        if (rows == 0 && bulkLoad.getKind() == DuckDBBulkLoadStatement.Kind.CREATE_TABLE_AS) {
+            // CREATE TABLE ... AS does not report the number of rows it inserted
+            try {
+                rows = jdbcTemplate.queryForLong("SELECT count(*) FROM " + bulkLoad.getTarget());
+            } catch (SQLException e) {
+                LOG.debug("Unable to count the rows loaded into " + bulkLoad.getTarget() + ": " + e.getMessage());
+            }
+        }
+        final var millis = nanos / 1_000_000;
+        final var rowsPerSecond = nanos == 0 ? rows : (long) (rows * 1e9 / nanos);
+        LOG.info("Loaded %d row(s) into %s in %d ms (%d rows/s)".formatted(rows, bulkLoad.getTarget(), millis, rowsPerSecond));
+    }
+}
@@ -0,0 +1,212 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.ResourceProvider;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.flywaydb.core.api.resource.LoadableResource;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.scanner.LocationScannerCache;
+import org.flywaydb.core.internal.scanner.ResourceNameCache;
+import org.flywaydb.core.internal.scanner.Scanner;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuckDBFleetMigratorTest {
+
+    private static final String INITIAL_MIGRATION_LOCATION = "initial_migration";
+    private static final Path FLEET_DIRECTORY = Path.of("target/fleet");
+    private static final List<String> FLEET_FILENAMES = List.of("customer_1.duckdb", "customer_2.duckdb", "customer_3.duckdb");
+
+    @AfterEach
+    void cleanup() throws IOException {
+        if (Files.exists(FLEET_DIRECTORY)) {
+            try (Stream<Path> files = Files.walk(FLEET_DIRECTORY)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    void migrates_every_database_file_of_a_directory() throws SQLException, IOException {
+        // given
+        Files.createDirectories(FLEET_DIRECTORY);
+        for (final var filename : FLEET_FILENAMES) {
+            DriverManager.getConnection("jdbc:duckdb:" + FLEET_DIRECTORY.resolve(filename), "", "").close();
+        }
+        final var configuration = Flyway.configure().locations(INITIAL_MIGRATION_LOCATION);
+        final var manifest = FLEET_DIRECTORY.resolve("manifest.tsv");
+
+        // when
+        final var report = new DuckDBFleetMigrator(configuration, 2).migrate(FLEET_DIRECTORY, "*.duckdb");
+        report.writeManifest(manifest);
+
+        // then
+        assertThat(report.isSuccess()).isTrue();
+        assertThat(report.getSucceeded()).hasSize(3);
+        for (final var filename : FLEET_FILENAMES) {
+            assertThat(getFlywayHistoryMigrationDescriptions(FLEET_DIRECTORY.resolve(filename))).isEqualTo(List.of("first", "second"));
+        }
+        assertThat(Files.readAllLines(manifest))
+            .hasSize(4)
+            .allSatisfy(line -> assertThat(line.split("\t", -1)).hasSize(6));
+    }
+
+    @Test
+    void records_a_failing_database_file_without_aborting_the_others() throws SQLException, IOException {
+        // given
+        Files.createDirectories(FLEET_DIRECTORY);
+        for (final var filename : FLEET_FILENAMES) {
+            DriverManager.getConnection("jdbc:duckdb:" + FLEET_DIRECTORY.resolve(filename), "", "").close();
+        }
+        final var corruptFile = FLEET_DIRECTORY.resolve("customer_0.duckdb");
+        Files.writeString(corruptFile, "not a DuckDB database file");
+        final var configuration = Flyway.configure().locations(INITIAL_MIGRATION_LOCATION);
+        final var manifest = FLEET_DIRECTORY.resolve("manifest.tsv");
+
+        // when
+        final var report = new DuckDBFleetMigrator(configuration, 2).migrate(FLEET_DIRECTORY, "*.duckdb");
+        report.writeManifest(manifest);
+
+        // then
+        assertThat(report.isSuccess()).isFalse();
+        assertThat(report.getFailed()).containsOnlyKeys(corruptFile);
+        assertThat(report.getSucceeded()).hasSize(3);
+        for (final var filename : FLEET_FILENAMES) {
+            assertThat(getFlywayHistoryMigrationDescriptions(FLEET_DIRECTORY.resolve(filename))).isEqualTo(List.of("first", "second"));
+        }
+        final var statuses = Files.readAllLines(manifest).stream()
+            .skip(1)
+            .map(line -> line.split("\t", -1))
+            .collect(Collectors.toMap(columns -> columns[0], columns -> columns[1]));
+        assertThat(statuses).containsEntry(corruptFile.toString(), "failed");
+        for (final var filename : FLEET_FILENAMES) {
+            assertThat(statuses).containsEntry(FLEET_DIRECTORY.resolve(filename).toString(), "success");
+        }
+    }
+
+    @Test
+    void reads_each_script_once_for_the_whole_fleet() throws SQLException, IOException {
+        // given
+        Files.createDirectories(FLEET_DIRECTORY);
+        for (final var filename : FLEET_FILENAMES) {
+            DriverManager.getConnection("jdbc:duckdb:" + FLEET_DIRECTORY.resolve(filename), "", "").close();
+        }
+        final var configuration = Flyway.configure().locations(INITIAL_MIGRATION_LOCATION);
+        final var resourceProvider = new CountingResourceProvider(
+            new Scanner<>(JavaMigration.class, false, new ResourceNameCache(), new LocationScannerCache(), configuration));
+        configuration.resourceProvider(resourceProvider);
+
+        // when
+        final var report = new DuckDBFleetMigrator(configuration, 2).migrate(FLEET_DIRECTORY, "*.duckdb");
+
+        // then
+        assertThat(report.isSuccess()).isTrue();
+        assertThat(resourceProvider.reads)
+            .containsOnlyKeys("V001__first.sql", "V002__second.sql")
+            .allSatisfy((filename, reads) -> assertThat(reads).hasValue(1));
+    }
+
+    /**
+     * Counts how often the content of each resource is read.
+     */
+    private static final class CountingResourceProvider implements ResourceProvider {
+        private final ResourceProvider delegate;
+        private final Map<String, AtomicInteger> reads = new ConcurrentHashMap<>();
+
+        private CountingResourceProvider(ResourceProvider delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public LoadableResource getResource(String name) {
+            final var resource = delegate.getResource(name);
+            return resource == null ? null : new CountingResource(resource);
+        }
+
+        @Override
+        public Collection<LoadableResource> getResources(String prefix, String[] suffixes) {
+            return delegate.getResources(prefix, suffixes).stream()
+                .map(resource -> (LoadableResource) new CountingResource(resource))
+                .toList();
+        }
+
+        private final class CountingResource extends LoadableResource {
+            private final LoadableResource resource;
+
+            private CountingResource(LoadableResource resource) {
+                this.resource = resource;
+            }
+
+            @Override
+            public Reader read() {
+                reads.computeIfAbsent(resource.getFilename(), filename -> new AtomicInteger()).incrementAndGet();
+                return resource.read();
+            }
+
+            @Override
+            public String getAbsolutePath() {
+                return resource.getAbsolutePath();
+            }
+
+            @Override
+            public String getAbsolutePathOnDisk() {
+                return resource.getAbsolutePathOnDisk();
+            }
+
+            @Override
+            public String getFilename() {
+                return resource.getFilename();
+            }
+
+            @Override
+            public String getRelativePath() {
+                return resource.getRelativePath();
+            }
+        }
+    }
+
+    private static List<String> getFlywayHistoryMigrationDescriptions(Path file) throws SQLException {
+        try (final var connection = DriverManager.getConnection("jdbc:duckdb:" + file, "", "")) {
+            return new JdbcTemplate(connection, new DuckDBDatabaseType())
+                .queryForStringList("SELECT description FROM main.flyway_schema_history ORDER by installed_rank");
+        }
+    }
+}
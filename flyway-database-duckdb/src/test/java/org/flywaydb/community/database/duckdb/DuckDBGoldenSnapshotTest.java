@@ -0,0 +1,162 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuckDBGoldenSnapshotTest {
+
+    private static final String INITIAL_MIGRATION_LOCATION = "initial_migration";
+    private static final String NEXT_MIGRATION_LOCATION = "next_migration";
+    private static final Path SNAPSHOT_DIRECTORY = Path.of("target/snapshots");
+    private static final String FIRST_DB_FILENAME = "target/snapshot-first.db";
+    private static final String SECOND_DB_FILENAME = "target/snapshot-second.db";
+
+    @AfterEach
+    void cleanup() throws IOException {
+        new File(FIRST_DB_FILENAME).delete();
+        new File(SECOND_DB_FILENAME).delete();
+        if (Files.exists(SNAPSHOT_DIRECTORY)) {
+            try (Stream<Path> files = Files.walk(SNAPSHOT_DIRECTORY)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    @Test
+    void restores_the_snapshot_of_an_identical_migration() throws SQLException, IOException {
+        // given
+        final var recorded = snapshot(FIRST_DB_FILENAME, INITIAL_MIGRATION_LOCATION).migrate();
+
+        // when
+        final var restored = snapshot(SECOND_DB_FILENAME, INITIAL_MIGRATION_LOCATION).migrate();
+
+        // then
+        assertThat(recorded).isFalse();
+        assertThat(restored).isTrue();
+        assertThat(countSnapshots()).isEqualTo(1);
+        final var jdbcTemplate = jdbcTemplate(SECOND_DB_FILENAME);
+        try {
+            assertThat(jdbcTemplate.queryForStringList("SELECT description FROM main.flyway_schema_history ORDER by installed_rank"))
+                .isEqualTo(List.of("first", "second"));
+            assertThat(jdbcTemplate.queryForInt("SELECT count(*) FROM main.some_table")).isEqualTo(2);
+            assertThat(jdbcTemplate.queryForStringList("SELECT view_name FROM duckdb_views() WHERE NOT internal"))
+                .isEqualTo(List.of("some_view"));
+        } finally {
+            jdbcTemplate.getConnection().close();
+        }
+    }
+
+    @Test
+    void records_a_new_snapshot_when_migrations_change() throws IOException {
+        // given
+        snapshot(FIRST_DB_FILENAME, INITIAL_MIGRATION_LOCATION).migrate();
+
+        // when
+        final var restored = snapshot(SECOND_DB_FILENAME, NEXT_MIGRATION_LOCATION).migrate();
+
+        // then
+        assertThat(restored).isFalse();
+        assertThat(countSnapshots()).isEqualTo(2);
+    }
+
+    @Test
+    void records_a_new_snapshot_when_a_callback_changes(@TempDir Path location) throws IOException {
+        // given
+        Files.writeString(location.resolve("V1__first.sql"), "CREATE TABLE some_table (id INTEGER);");
+        Files.writeString(location.resolve("afterMigrate.sql"), "INSERT INTO some_table VALUES (1);");
+        snapshot(FIRST_DB_FILENAME, "filesystem:" + location).migrate();
+        Files.writeString(location.resolve("afterMigrate.sql"), "INSERT INTO some_table VALUES (2);");
+
+        // when
+        final var restored = snapshot(SECOND_DB_FILENAME, "filesystem:" + location).migrate();
+
+        // then
+        assertThat(restored).isFalse();
+        assertThat(countSnapshots()).isEqualTo(2);
+    }
+
+    @Test
+    void never_snapshots_migrations_without_a_checksum() throws SQLException {
+        // given
+        final var configuration = Flyway.configure()
+            .dataSource("jdbc:duckdb:" + FIRST_DB_FILENAME, "", "")
+            .locations(INITIAL_MIGRATION_LOCATION)
+            .javaMigrations(new V3__third());
+
+        // when
+        final var restored = new DuckDBGoldenSnapshot(configuration, SNAPSHOT_DIRECTORY).migrate();
+
+        // then
+        assertThat(restored).isFalse();
+        assertThat(Files.exists(SNAPSHOT_DIRECTORY)).isFalse();
+        final var jdbcTemplate = jdbcTemplate(FIRST_DB_FILENAME);
+        try {
+            assertThat(jdbcTemplate.queryForInt("SELECT count(*) FROM main.some_table")).isEqualTo(3);
+        } finally {
+            jdbcTemplate.getConnection().close();
+        }
+    }
+
+    static class V3__third extends BaseJavaMigration {
+        @Override
+        public void migrate(Context context) throws Exception {
+            try (final var statement = context.getConnection().createStatement()) {
+                statement.execute("INSERT INTO main.some_table VALUES (3, 'three')");
+            }
+        }
+    }
+
+    private static DuckDBGoldenSnapshot snapshot(String filename, String location) {
+        final var configuration = Flyway.configure()
+            .dataSource("jdbc:duckdb:" + filename, "", "")
+            .locations(location);
+        return new DuckDBGoldenSnapshot(configuration, SNAPSHOT_DIRECTORY);
+    }
+
+    private static long countSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(SNAPSHOT_DIRECTORY)) {
+            return files.count();
+        }
+    }
+
+    private static JdbcTemplate jdbcTemplate(String filename) throws SQLException {
+        return new JdbcTemplate(DriverManager.getConnection("jdbc:duckdb:" + filename, "", ""), new DuckDBDatabaseType());
+    }
+}
@@ -0,0 +1,98 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DuckDBParserTest {
+
+    @Test
+    void classifies_statements_loading_external_files() {
+        // when
+        final var statements = parse("""
+            -- load the raw data
+            COPY raw_events FROM 'events.csv' (HEADER);
+            COPY "Raw Events" (id, name) FROM 'events.parquet';
+            /* derived */ CREATE OR REPLACE TABLE daily AS SELECT * FROM read_parquet('daily/*.parquet');
+            CREATE TABLE IF NOT EXISTS main.weekly AS FROM 'weekly.csv';
+            INSERT INTO events SELECT * FROM read_csv_auto('more.csv');
+            INSERT OR REPLACE INTO events BY NAME SELECT * FROM read_json('more.json');
+            """);
+
+        // then
+        assertThat(statements).hasSize(6);
+        assertBulkLoad(statements.get(0), DuckDBBulkLoadStatement.Kind.COPY, "raw_events");
+        assertBulkLoad(statements.get(1), DuckDBBulkLoadStatement.Kind.COPY, "\"Raw Events\"");
+        assertBulkLoad(statements.get(2), DuckDBBulkLoadStatement.Kind.CREATE_TABLE_AS, "daily");
+        assertBulkLoad(statements.get(3), DuckDBBulkLoadStatement.Kind.CREATE_TABLE_AS, "main.weekly");
+        assertBulkLoad(statements.get(4), DuckDBBulkLoadStatement.Kind.INSERT, "events");
+        assertBulkLoad(statements.get(5), DuckDBBulkLoadStatement.Kind.INSERT, "events");
+    }
+
+    @Test
+    void does_not_classify_other_statements() {
+        // when
+        final var statements = parse("""
+            COPY FROM DATABASE source TO target;
+            COPY events TO 'events.parquet' (FORMAT PARQUET);
+            CREATE TABLE copy_of_events AS SELECT * FROM events;
+            INSERT INTO events VALUES (1, 'read_csv(''x.csv'')');
+            -- INSERT INTO events SELECT * FROM read_csv('commented_out.csv')
+            SELECT 1;
+            """);
+
+        // then
+        assertThat(statements).hasSize(5).noneMatch(DuckDBBulkLoadStatement.class::isInstance);
+    }
+
+    @Test
+    void strips_leading_comments() {
+        assertThat(DuckDBParser.stripLeadingComments(" -- a\n/* c\n */ INSERT -- d")).isEqualTo("INSERT -- d");
+        assertThat(DuckDBParser.stripLeadingComments("// not a comment\nINSERT")).isEqualTo("// not a comment\nINSERT");
+        assertThat(DuckDBParser.stripLeadingComments("-- only a comment")).isEmpty();
+        assertThat(DuckDBParser.stripLeadingComments("SELECT 1")).isEqualTo("SELECT 1");
+    }
+
+    private static void assertBulkLoad(SqlStatement statement, DuckDBBulkLoadStatement.Kind kind, String target) {
+        assertThat(statement).isInstanceOfSatisfying(DuckDBBulkLoadStatement.class, bulkLoad -> {
+            assertThat(bulkLoad.getKind()).isEqualTo(kind);
+            assertThat(bulkLoad.getTarget()).isEqualTo(target);
+        });
+    }
+
+    private static List<SqlStatement> parse(String sql) {
+        final var statements = new ArrayList<SqlStatement>();
+        try (final var iterator = new DuckDBParser(new FluentConfiguration(), new ParsingContext()).parse(new StringResource(sql))) {
+            iterator.forEachRemaining(statements::add);
+        }
+        return statements;
+    }
+}
@@ -0,0 +1,125 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DuckDBRehearsalTest {
+
+    private static final String INITIAL_MIGRATION_LOCATION = "initial_migration";
+    private static final String NEXT_MIGRATION_LOCATION = "next_migration";
+    private static final String FAILING_MIGRATION_LOCATION = "failing_migration";
+    private static final String SAMPLED_MIGRATION_LOCATION = "sampled_migration";
+    private static final String TEST_DB_FILENAME = "target/rehearsal.db";
+    private static final String TEST_DB_CONNECTION_URL = "jdbc:duckdb:" + TEST_DB_FILENAME;
+
+    @AfterEach
+    void cleanup() {
+        new File(TEST_DB_FILENAME).delete();
+        new File(TEST_DB_FILENAME + ".wal").delete();
+    }
+
+    @Test
+    void rehearses_pending_migrations_without_writing_to_the_database_file() throws SQLException {
+        // given
+        migrateInitialMigrations();
+        final var rehearsal = new DuckDBRehearsal(Flyway.configure().locations(NEXT_MIGRATION_LOCATION), 10);
+
+        // when
+        final var report = rehearsal.rehearse(Path.of(TEST_DB_FILENAME));
+
+        // then
+        assertThat(report.isSuccess()).isTrue();
+        assertThat(report.getResult().migrationsExecuted).isEqualTo(1);
+        assertThat(getFlywayHistoryMigrationDescriptions()).isEqualTo(List.of("first", "second"));
+
+        // when
+        rehearsal.migrate(Path.of(TEST_DB_FILENAME));
+
+        // then
+        assertThat(getFlywayHistoryMigrationDescriptions()).isEqualTo(List.of("first", "second", "add more rows"));
+    }
+
+    @Test
+    void does_not_migrate_the_database_file_when_the_rehearsal_fails() throws SQLException {
+        // given
+        migrateInitialMigrations();
+        final var rehearsal = new DuckDBRehearsal(Flyway.configure().locations(INITIAL_MIGRATION_LOCATION, FAILING_MIGRATION_LOCATION), 0);
+
+        // when
+        final var report = rehearsal.rehearse(Path.of(TEST_DB_FILENAME));
+
+        // then
+        assertThat(report.isSuccess()).isFalse();
+        assertThat(report.getFailure()).hasMessageContaining("missing_table");
+        assertThatThrownBy(() -> rehearsal.migrate(Path.of(TEST_DB_FILENAME))).isInstanceOf(FlywayException.class);
+        assertThat(getFlywayHistoryMigrationDescriptions()).isEqualTo(List.of("first", "second"));
+    }
+
+    @Test
+    void samples_rows_satisfying_their_foreign_keys() throws SQLException {
+        // given
+        migrateInitialMigrations();
+        try (final var connection = DriverManager.getConnection(TEST_DB_CONNECTION_URL, "", "")) {
+            final var jdbcTemplate = new JdbcTemplate(connection, new DuckDBDatabaseType());
+            jdbcTemplate.execute("INSERT INTO main.some_table_2(id, some_table_id) VALUES (1, 1), (2, 1), (3, 2), (4, 2)");
+            jdbcTemplate.execute("INSERT INTO main.some_table_3(id, some_table_id) VALUES (1, NULL)");
+            jdbcTemplate.execute("INSERT INTO main.some_table_3(id, some_table_id) VALUES (2, 1)");
+        }
+        final var rehearsal = new DuckDBRehearsal(Flyway.configure().locations(INITIAL_MIGRATION_LOCATION, SAMPLED_MIGRATION_LOCATION), 1);
+
+        // when
+        final var report = rehearsal.rehearse(Path.of(TEST_DB_FILENAME));
+
+        // then
+        assertThat(report.getFailure()).isNull();
+        assertThat(report.isSuccess()).isTrue();
+        assertThat(report.getResult().migrationsExecuted).isEqualTo(1);
+    }
+
+    private static void migrateInitialMigrations() {
+        Flyway.configure()
+            .dataSource(TEST_DB_CONNECTION_URL, "", "")
+            .locations(INITIAL_MIGRATION_LOCATION)
+            .load()
+            .migrate();
+    }
+
+    private static List<String> getFlywayHistoryMigrationDescriptions() throws SQLException {
+        try (final var connection = DriverManager.getConnection(TEST_DB_CONNECTION_URL, "", "")) {
+            return new JdbcTemplate(connection, new DuckDBDatabaseType())
+                .queryForStringList("SELECT description FROM main.flyway_schema_history ORDER by installed_rank");
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-duckdb
+ * ========================================================================
+ * Copyright (C) 2010 - 2025 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.duckdb;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class DuckDBSchemaTest {
+
+    @Test
+    void drops_referenced_tables_after_the_tables_referencing_them() {
+        // given
+        final var referencingTables = Map.of(
+            "customers", Set.of("orders"),
+            "orders", Set.of("order_lines"),
+            "order_lines", Set.<String>of(),
+            "products", Set.of("order_lines"),
+            "audit", Set.<String>of()
+        );
+
+        // when
+        final var waves = DuckDBSchema.computeDropWaves("main", referencingTables);
+
+        // then
+        assertThat(waves).isEqualTo(List.of(
+            List.of("audit", "order_lines"),
+            List.of("orders", "products"),
+            List.of("customers")
+        ));
+    }
+
+    @Test
+    void reports_foreign_key_cycles_up_front() {
+        // given
+        final var referencingTables = Map.of(
+            "a", Set.of("b"),
+            "b", Set.of("a"),
+            "c", Set.<String>of()
+        );
+
+        // when / then
+        assertThatThrownBy(() -> DuckDBSchema.computeDropWaves("main", referencingTables))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("[a, b]");
+    }
+}
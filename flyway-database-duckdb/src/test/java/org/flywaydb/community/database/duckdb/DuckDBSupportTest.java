@@ -20,14 +20,22 @@
 package org.flywaydb.community.database.duckdb;
 
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.callback.BaseCallback;
+import org.flywaydb.core.api.callback.Context;
+import org.flywaydb.core.api.callback.Event;
 import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -38,6 +46,9 @@ class DuckDBSupportTest {
     private static final String TEST_DB_FILENAME = "target/test.db";
     private static final String TEST_DB_CONNECTION_URL = "jdbc:duckdb:" + TEST_DB_FILENAME;
     private static final String INITIAL_MIGRATION_LOCATION = "initial_migration";
+    private static final String BULK_LOAD_MIGRATION_LOCATION = "bulk_load_migration";
+    private static final String BULK_LOAD_DATA_FILENAME = "target/bulk_load.csv";
+    private static final String ATTACHED_DB_FILENAME = "target/attached.db";
 
     private final JdbcTemplate jdbcTemplate = jdbcTemplate();
 
@@ -48,6 +59,8 @@ class DuckDBSupportTest {
     void cleanup() throws SQLException {
         jdbcTemplate.getConnection().close();
         new File(TEST_DB_FILENAME).delete();
+        new File(BULK_LOAD_DATA_FILENAME).delete();
+        new File(ATTACHED_DB_FILENAME).delete();
     }
 
     @Test
@@ -180,8 +193,118 @@ class DuckDBSupportTest {
         assertThat(getAllSequencesNames()).isEmpty();
     }
 
+    @Test
+    void cleans_only_the_tables_of_the_current_database() throws SQLException {
+        // given
+        try (final var connection = DriverManager.getConnection("jdbc:duckdb:" + ATTACHED_DB_FILENAME, "", "");
+             final var statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE attached_parent (id INTEGER PRIMARY KEY)");
+            statement.execute("CREATE TABLE attached_child (parent_id INTEGER REFERENCES attached_parent (id))");
+        }
+        Flyway.configure()
+            .dataSource(TEST_DB_CONNECTION_URL, "", "")
+            .locations(INITIAL_MIGRATION_LOCATION)
+            .load()
+            .migrate();
+        final var flyway = Flyway.configure()
+            .dataSource(TEST_DB_CONNECTION_URL, "", "")
+            .initSql("ATTACH IF NOT EXISTS '" + ATTACHED_DB_FILENAME + "' AS attached")
+            .cleanDisabled(false)
+            .load();
+
+        // when
+        flyway.clean();
+
+        // then
+        assertThat(getAllTablesNames("main")).isEmpty();
+        assertThat(jdbcTemplate.queryForStringList("SELECT table_name FROM duckdb_tables() WHERE database_name = 'attached'"))
+            .containsExactlyInAnyOrder("attached_parent", "attached_child");
+    }
+
+    @Test
+    void checkpoints_once_when_checkpoints_are_deferred() throws SQLException, IOException {
+        // given
+        final var originalWalAutocheckpoint = jdbcTemplate.queryForString("SELECT current_setting('wal_autocheckpoint')");
+        final var walAutocheckpointRecorder = new WalAutocheckpointRecorder();
+        final var flyway = Flyway.configure()
+            .dataSource(TEST_DB_CONNECTION_URL, "", "")
+            .locations(INITIAL_MIGRATION_LOCATION)
+            .configuration(Map.of("flyway.duckdb.deferCheckpoints", "true"))
+            .callbacks(walAutocheckpointRecorder)
+            .group(true)
+            .load();
+
+        // when
+        flyway.migrate();
+
+        // then
+        assertThat(getFlywayHistoryMigrationDescriptions()).isEqualTo(List.of("first", "second"));
+        assertThat(walAutocheckpointRecorder.values).hasSize(2).allSatisfy(value -> assertThat(value).isNotEqualTo(originalWalAutocheckpoint));
+        assertThat(walAutocheckpointRecorder.walSizes).hasSize(2).allSatisfy(walSize -> assertThat(walSize).isPositive());
+        assertThat(getWalSize()).isZero();
+        assertThat(jdbcTemplate.queryForString("SELECT current_setting('wal_autocheckpoint')")).isEqualTo(originalWalAutocheckpoint);
+    }
+
+    @Test
+    void applies_bulk_load_settings_only_while_loading() throws SQLException, IOException {
+        // given
+        Files.writeString(Path.of(BULK_LOAD_DATA_FILENAME), "id,name\n1,one\n2,two\n3,three\n");
+        final var originalThreads = jdbcTemplate.queryForString("SELECT current_setting('threads')");
+        final var originalPreserveInsertionOrder = jdbcTemplate.queryForString("SELECT current_setting('preserve_insertion_order')");
+        final var flyway = Flyway.configure()
+            .dataSource(TEST_DB_CONNECTION_URL, "", "")
+            .locations(BULK_LOAD_MIGRATION_LOCATION)
+            .placeholders(Map.of("dataFile", BULK_LOAD_DATA_FILENAME))
+            .configuration(Map.of(
+                "flyway.duckdb.bulkLoadThreads", "1",
+                "flyway.duckdb.bulkLoadPreserveInsertionOrder", "false"))
+            .load();
+
+        // when
+        flyway.migrate();
+
+        // then
+        assertThat(jdbcTemplate.queryForInt("SELECT count(*) FROM main.loaded")).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForInt("SELECT count(*) FROM main.copied")).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForString("SELECT current_setting('threads')")).isEqualTo(originalThreads);
+        assertThat(jdbcTemplate.queryForString("SELECT current_setting('preserve_insertion_order')")).isEqualTo(originalPreserveInsertionOrder);
+    }
+
+    /**
+     * Records the {@code wal_autocheckpoint} setting seen by the migration connection after each migration.
+     */
+    private static class WalAutocheckpointRecorder extends BaseCallback {
+        private final List<String> values = new ArrayList<>();
+        private final List<Long> walSizes = new ArrayList<>();
+
+        @Override
+        public boolean supports(Event event, Context context) {
+            return event == Event.AFTER_EACH_MIGRATE;
+        }
+
+        @Override
+        public void handle(Event event, Context context) {
+            try (final var statement = context.getConnection().createStatement();
+                 final var resultSet = statement.executeQuery("SELECT current_setting('wal_autocheckpoint')")) {
+                resultSet.next();
+                values.add(resultSet.getString(1));
+                walSizes.add(getWalSize());
+            } catch (SQLException | IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * @return The size of the write-ahead log of the test database, which a checkpoint empties.
+     */
+    private static long getWalSize() throws IOException {
+        final var wal = Path.of(TEST_DB_FILENAME + ".wal");
+        return Files.exists(wal) ? Files.size(wal) : 0;
+    }
+
     private Set<String> getAllTablesNames(String schema) throws SQLException {
-        return Set.copyOf(jdbcTemplate.queryForStringList("SELECT table_name FROM duckdb_tables() WHERE schema_name = ?", schema));
+        return Set.copyOf(jdbcTemplate.queryForStringList("SELECT table_name FROM duckdb_tables() WHERE database_name = current_database() AND schema_name = ?", schema));
     }
 
     private List<String> getAllViewsNames() throws SQLException {
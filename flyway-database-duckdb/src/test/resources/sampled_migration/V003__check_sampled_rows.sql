@@ -0,0 +1,23 @@
+---
+-- ========================LICENSE_START=================================
+-- flyway-database-duckdb
+-- ========================================================================
+-- Copyright (C) 2010 - 2025 Red Gate Software Ltd
+-- ========================================================================
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+-- 
+--      http://www.apache.org/licenses/LICENSE-2.0
+-- 
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+-- =========================LICENSE_END==================================
+-- fails unless exactly one row of every table was sampled, each referencing a sampled row
+SELECT error('Unexpected rows sampled into the rehearsal database')
+WHERE (SELECT count(*) FROM ${flyway:defaultSchema}.some_table) != 1
+    OR (SELECT count(*) FROM ${flyway:defaultSchema}.some_table_2) != 1
+    OR (SELECT count(*) FROM ${flyway:defaultSchema}.some_table_3) != 1;
@@ -0,0 +1,131 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.timeplus;
+
+import lombok.CustomLog;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.util.StringUtils;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Drops all streams, views and materialized views of a database in dependency order.
+ * <p>
+ * The drop graph is built from the {@link TimeplusInventory} of the schema: {@code dependencies_table} links a source
+ * stream to the views reading from it and the {@code INTO} clause of a materialized view links it to its target
+ * stream. Materialized views are paused first, so that they stop consuming their sources while these are dropped.
+ * Objects are then dropped in waves, where every object of a wave only has dependents in earlier waves. The objects of
+ * a wave are dropped concurrently on up to {@code cleanParallelism} connections, one at a time by default.
+ */
+@CustomLog
+public class TimeplusCleaner {
+    private static final String INNER_STREAM_PREFIX = ".inner";
+    private static final String MATERIALIZED_VIEW_ENGINE = "MaterializedView";
+
+    private static final Pattern MATERIALIZED_VIEW_TARGET = Pattern.compile(
+            "^CREATE MATERIALIZED VIEW\\s+(?:`[^`]*`|[^\\s`])+\\s+(?:INTO|TO)\\s+((?:`[^`]*`|[^\\s`(])+)", Pattern.CASE_INSENSITIVE);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TimeplusDatabase database;
+    private final String schema;
+
+    /**
+     * @param jdbcTemplate The JDBC template used when dropping sequentially.
+     * @param database     The database-specific support.
+     * @param schema       The name of the schema to clean.
+     */
+    public TimeplusCleaner(JdbcTemplate jdbcTemplate, TimeplusDatabase database, String schema) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.database = database;
+        this.schema = schema;
+    }
+
+    public void clean(TimeplusInventory inventory) throws SQLException {
+        Set<String> materializedViews = new TreeSet<>();
+        Map<String, Set<String>> dropGraph = buildDropGraph(inventory.getStreamRows(), materializedViews);
+        List<List<String>> waves = TimeplusDropWaves.compute(dropGraph);
+        LOG.debug("Cleaning " + dropGraph.size() + " objects of " + database.quote(schema) + " in " + waves.size() + " wave(s)");
+
+        for (String materializedView : materializedViews) {
+            pause(materializedView);
+        }
+
+        TimeplusDropWaves.drop(waves, database.getCleanParallelism(), jdbcTemplate, database::openConnection, this::drop);
+    }
+
+    /**
+     * Maps every object of the schema to the objects which must be dropped before it.
+     */
+    private Map<String, Set<String>> buildDropGraph(List<String[]> rows, Set<String> materializedViews) {
+        Map<String, Set<String>> dropGraph = new TreeMap<>();
+        for (String[] row : rows) {
+            if (!row[0].startsWith(INNER_STREAM_PREFIX)) {
+                dropGraph.computeIfAbsent(row[0], name -> new TreeSet<>());
+                if (MATERIALIZED_VIEW_ENGINE.equals(row[1])) {
+                    materializedViews.add(row[0]);
+                }
+            }
+        }
+
+        for (String[] row : rows) {
+            String name = row[0];
+
+            // Views reading from this stream
+            if (StringUtils.hasText(row[4]) && schema.equals(row[3])) {
+                addEdge(dropGraph, name, row[4]);
+            }
+
+            Matcher targetMatcher = MATERIALIZED_VIEW_TARGET.matcher(row[2] == null ? "" : row[2]);
+            if (targetMatcher.find()) {
+                addEdge(dropGraph, TimeplusDropWaves.localName(targetMatcher.group(1), schema), name);
+            }
+        }
+        return dropGraph;
+    }
+
+    private static void addEdge(Map<String, Set<String>> dropGraph, String stream, String dropFirst) {
+        if (stream != null && !stream.equals(dropFirst) && dropGraph.containsKey(stream) && dropGraph.containsKey(dropFirst)) {
+            dropGraph.get(stream).add(dropFirst);
+        }
+    }
+
+    private void pause(String materializedView) {
+        try {
+            jdbcTemplate.execute("SYSTEM PAUSE MATERIALIZED VIEW " + database.quote(schema, materializedView));
+        } catch (SQLException e) {
+            // Not supported by every Timeplus edition, the view is then stopped by dropping it. Until then it keeps
+            // consuming its sources, which may make dropping them fail.
+            LOG.warn("Unable to pause " + database.quote(schema, materializedView) + ": " + e.getMessage());
+        }
+    }
+
+    private void drop(JdbcTemplate jdbcTemplate, String stream) throws SQLException {
+        String clusterName = database.getClusterName();
+        jdbcTemplate.executeStatement("DROP STREAM " + database.quote(schema, stream) + (StringUtils.hasText(clusterName) ? (" ON CLUSTER " + clusterName) : ""));
+    }
+}
@@ -21,6 +21,7 @@
 package org.flywaydb.community.database.timeplus;
 
 import lombok.Getter;
+import org.flywaydb.core.api.FlywayException;
 import org.flywaydb.core.extensibility.ConfigurationExtension;
 
 import java.util.Map;
@@ -29,11 +30,25 @@ import java.util.Map;
 public class TimeplusConfigurationExtension implements ConfigurationExtension {
     private static final String CLUSTER_NAME = "flyway.timeplus.clusterName";
     private static final String ZOOKEEPER_PATH = "flyway.timeplus.zookeeperPath";
+    private static final String CLEAN_PARALLELISM = "flyway.timeplus.cleanParallelism";
+    private static final String VERSIONED_SCHEMA_HISTORY = "flyway.timeplus.versionedSchemaHistory";
+    private static final String MATERIALIZED_VIEW_BACKFILL = "flyway.timeplus.materializedViewBackfill";
+    private static final String MATERIALIZED_VIEW_CATCH_UP = "flyway.timeplus.materializedViewCatchUp";
+    private static final String MATERIALIZED_VIEW_CATCH_UP_TIMEOUT_SECONDS = "flyway.timeplus.materializedViewCatchUpTimeoutSeconds";
+    private static final String MATERIALIZED_VIEW_LAG_QUERY = "flyway.timeplus.materializedViewLagQuery";
 
     private static final String ZOOKEEPER_PATH_DEFAULT_VALUE = "/timeplus/tables/{shard}/{database}/{table}";
+    private static final int CLEAN_PARALLELISM_DEFAULT_VALUE = 1;
+    private static final int MATERIALIZED_VIEW_CATCH_UP_TIMEOUT_SECONDS_DEFAULT_VALUE = 600;
 
     private String clusterName;
     private String zookeeperPath = ZOOKEEPER_PATH_DEFAULT_VALUE;
+    private int cleanParallelism = CLEAN_PARALLELISM_DEFAULT_VALUE;
+    private boolean versionedSchemaHistory;
+    private boolean materializedViewBackfill;
+    private boolean materializedViewCatchUp;
+    private int materializedViewCatchUpTimeoutSeconds = MATERIALIZED_VIEW_CATCH_UP_TIMEOUT_SECONDS_DEFAULT_VALUE;
+    private String materializedViewLagQuery;
 
     @Override
     public String getNamespace() {
@@ -51,6 +66,36 @@ public class TimeplusConfigurationExtension implements ConfigurationExtension {
         if (zookeeperPath != null) {
             this.zookeeperPath = zookeeperPath;
         }
+
+        String cleanParallelism = configuration.remove(CLEAN_PARALLELISM);
+        if (cleanParallelism != null) {
+            this.cleanParallelism = parsePositiveInt(CLEAN_PARALLELISM, cleanParallelism);
+        }
+
+        String versionedSchemaHistory = configuration.remove(VERSIONED_SCHEMA_HISTORY);
+        if (versionedSchemaHistory != null) {
+            this.versionedSchemaHistory = Boolean.parseBoolean(versionedSchemaHistory);
+        }
+
+        String materializedViewBackfill = configuration.remove(MATERIALIZED_VIEW_BACKFILL);
+        if (materializedViewBackfill != null) {
+            this.materializedViewBackfill = Boolean.parseBoolean(materializedViewBackfill);
+        }
+
+        String materializedViewCatchUp = configuration.remove(MATERIALIZED_VIEW_CATCH_UP);
+        if (materializedViewCatchUp != null) {
+            this.materializedViewCatchUp = Boolean.parseBoolean(materializedViewCatchUp);
+        }
+
+        String materializedViewCatchUpTimeoutSeconds = configuration.remove(MATERIALIZED_VIEW_CATCH_UP_TIMEOUT_SECONDS);
+        if (materializedViewCatchUpTimeoutSeconds != null) {
+            this.materializedViewCatchUpTimeoutSeconds = parsePositiveInt(MATERIALIZED_VIEW_CATCH_UP_TIMEOUT_SECONDS, materializedViewCatchUpTimeoutSeconds);
+        }
+
+        String materializedViewLagQuery = configuration.remove(MATERIALIZED_VIEW_LAG_QUERY);
+        if (materializedViewLagQuery != null) {
+            this.materializedViewLagQuery = parseLagQuery(materializedViewLagQuery);
+        }
     }
 
     @Override
@@ -61,6 +106,51 @@ public class TimeplusConfigurationExtension implements ConfigurationExtension {
         if ("FLYWAY_TIMEPLUS_ZOOKEEPER_PATH".equals(environmentVariable)) {
             return ZOOKEEPER_PATH;
         }
+        if ("FLYWAY_TIMEPLUS_CLEAN_PARALLELISM".equals(environmentVariable)) {
+            return CLEAN_PARALLELISM;
+        }
+        if ("FLYWAY_TIMEPLUS_VERSIONED_SCHEMA_HISTORY".equals(environmentVariable)) {
+            return VERSIONED_SCHEMA_HISTORY;
+        }
+        if ("FLYWAY_TIMEPLUS_MATERIALIZED_VIEW_BACKFILL".equals(environmentVariable)) {
+            return MATERIALIZED_VIEW_BACKFILL;
+        }
+        if ("FLYWAY_TIMEPLUS_MATERIALIZED_VIEW_CATCH_UP".equals(environmentVariable)) {
+            return MATERIALIZED_VIEW_CATCH_UP;
+        }
+        if ("FLYWAY_TIMEPLUS_MATERIALIZED_VIEW_CATCH_UP_TIMEOUT_SECONDS".equals(environmentVariable)) {
+            return MATERIALIZED_VIEW_CATCH_UP_TIMEOUT_SECONDS;
+        }
+        if ("FLYWAY_TIMEPLUS_MATERIALIZED_VIEW_LAG_QUERY".equals(environmentVariable)) {
+            return MATERIALIZED_VIEW_LAG_QUERY;
+        }
         return null;
     }
+
+    /**
+     * The lag query receives the materialized view as its only parameter.
+     */
+    private static String parseLagQuery(String value) {
+        if (value.trim().isEmpty()) {
+            return null;
+        }
+        long placeholders = value.chars().filter(c -> c == '?').count();
+        if (placeholders != 1) {
+            throw new FlywayException("Invalid value for " + MATERIALIZED_VIEW_LAG_QUERY + ": " + value
+                    + " (must be a query with exactly one ? placeholder for the materialized view)");
+        }
+        return value;
+    }
+
+    private static int parsePositiveInt(String key, String value) {
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // handled below
+        }
+        throw new FlywayException("Invalid value for " + key + ": " + value + " (must be a positive integer)");
+    }
 }
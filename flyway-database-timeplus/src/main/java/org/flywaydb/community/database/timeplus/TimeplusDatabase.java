@@ -31,10 +31,27 @@ import org.flywaydb.core.internal.util.StringUtils;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public class TimeplusDatabase extends Database<TimeplusConnection> {
 
+    private static final String ROW_VERSION_COLUMN = "row_version";
+    private static final String IS_DELETED_COLUMN = "is_deleted";
+    private static final String NEXT_ROW_VERSION = "to_unix_timestamp64_nano(now64(9))";
+    private static final String[] HISTORY_COLUMNS = {
+            "installed_rank", "version", "description", "type", "script", "checksum", "installed_by", "installed_on", "execution_time", "success"};
+    private static final String[] SERVER_OBJECT_TYPES = {"FORMAT SCHEMA", "FUNCTION"};
+
     private TimeplusConnection systemConnection;
+    private Boolean versionedSchemaHistory;
+    private final Map<String, TimeplusInventory> inventories = new HashMap<>();
+    private Map<String, List<String>> serverObjects;
+    private long serverObjectsGeneration;
 
     @Override
     public boolean useSingleConnection() {
@@ -53,6 +70,10 @@ public class TimeplusDatabase extends Database<TimeplusConnection> {
         return configuration.getPluginRegister().getPlugin(TimeplusConfigurationExtension.class).getZookeeperPath();
     }
 
+    public int getCleanParallelism() {
+        return configuration.getPluginRegister().getPlugin(TimeplusConfigurationExtension.class).getCleanParallelism();
+    }
+
     public TimeplusConnection getSystemConnection() {
         // Queries on system.XX fail with "Code: 81. DB::Exception: Database the_database doesn't exist. (UNKNOWN_DATABASE) (version 23.7.1.2470 (official build))"
         // in case the current catalog (database) is not yet created.
@@ -72,6 +93,50 @@ public class TimeplusDatabase extends Database<TimeplusConnection> {
         return systemConnection;
     }
 
+    /**
+     * @return The inventory of the given database, loaded on first use and cached until it is invalidated or a SQL
+     * script runs DDL.
+     */
+    public TimeplusInventory getInventory(String schema) throws SQLException {
+        TimeplusInventory inventory = inventories.get(schema);
+        if (inventory == null || inventory.isStale()) {
+            inventory = TimeplusInventory.load(getSystemConnection().getJdbcTemplate(), schema);
+            inventories.put(schema, inventory);
+        }
+        return inventory;
+    }
+
+    /**
+     * Discards the cached inventory of the given database after its objects have changed.
+     */
+    public void invalidateInventory(String schema) {
+        inventories.remove(schema);
+    }
+
+    /**
+     * @return The names of the format schemas and functions of the server, keyed by object type. They are global to
+     * the server, so they are listed once and shared by every database until a SQL script runs DDL. The lists are
+     * mutable: callers dropping an object remove it.
+     */
+    public Map<String, List<String>> getServerObjects() throws SQLException {
+        if (serverObjects == null || serverObjectsGeneration != TimeplusInventory.getDdlGeneration()) {
+            serverObjectsGeneration = TimeplusInventory.getDdlGeneration();
+            serverObjects = new LinkedHashMap<>();
+            for (String objectType : SERVER_OBJECT_TYPES) {
+                serverObjects.put(objectType, getSystemConnection().getJdbcTemplate().query(
+                        "SHOW " + objectType + "S", rs -> rs.getString("name")));
+            }
+        }
+        return serverObjects;
+    }
+
+    /**
+     * Opens an additional connection to the database. The caller is responsible for closing it.
+     */
+    TimeplusConnection openConnection() {
+        return doGetConnection(jdbcConnectionFactory.openConnection());
+    }
+
     @Override
     protected TimeplusConnection doGetConnection(Connection connection) {
         return new TimeplusConnection(this, connection);
@@ -117,6 +182,8 @@ public class TimeplusDatabase extends Database<TimeplusConnection> {
 
     @Override
     public String getRawCreateScript(Table table, boolean baseline) {
+        versionedSchemaHistory = isVersionedSchemaHistoryConfigured();
+
         String clusterName = getClusterName();
         boolean isClustered = StringUtils.hasText(clusterName);
 
@@ -131,30 +198,73 @@ public class TimeplusDatabase extends Database<TimeplusConnection> {
                         "    installed_on datetime DEFAULT now()," +
                         "    execution_time int32," +
                         "    success bool" +
+                        (versionedSchemaHistory ? "," +
+                                "    " + ROW_VERSION_COLUMN + " uint64 DEFAULT " + NEXT_ROW_VERSION + "," +
+                                "    " + IS_DELETED_COLUMN + " uint8 DEFAULT 0" : "") +
                 ")";
 
         String engine;
+        String sortingKey;
 
-        if (isClustered) {
-            engine = "ReplicatedMergeTree('" + getZookeeperPath() + "', '{replica}')";
+        if (versionedSchemaHistory) {
+            engine = isClustered
+                    ? "ReplicatedReplacingMergeTree('" + getZookeeperPath() + "', '{replica}', " + ROW_VERSION_COLUMN + ")"
+                    : "ReplacingMergeTree(" + ROW_VERSION_COLUMN + ")";
+            sortingKey = " ORDER BY (installed_rank)";
         } else {
-            engine = "MergeTree";
+            if (isClustered) {
+                engine = "ReplicatedMergeTree('" + getZookeeperPath() + "', '{replica}')";
+            } else {
+                engine = "MergeTree";
+            }
+            sortingKey = " PRIMARY KEY (script)";
         }
 
         script += " ENGINE = " + engine +
-                " PRIMARY KEY (script);";
+                sortingKey + ";";
 
         return script + (baseline ? getBaselineStatement(table) + ";" : "");
     }
 
+    @Override
+    public String getSelectStatement(Table table) {
+        if (!isVersionedSchemaHistory(table)) {
+            return super.getSelectStatement(table);
+        }
+        // FINAL collapses the row versions written by updates and deletes, tombstones are filtered out afterwards
+        return "SELECT " + getHistoryColumns() +
+               " FROM " + table + " FINAL" +
+               " WHERE " + quote("installed_rank") + " > ? AND " + quote(IS_DELETED_COLUMN) + " = 0" +
+               " ORDER BY " + quote("installed_rank");
+    }
+
     @Override
     public Pair<String, Object> getDeleteStatement(Table table, boolean version, String filter) {
+        if (isVersionedSchemaHistory(table)) {
+            // Append a tombstone version of the row instead of mutating the stream
+            String deleteStatement = "INSERT INTO " + table + " (" + getHistoryColumns() + ", " + quote(ROW_VERSION_COLUMN) + ", " + quote(IS_DELETED_COLUMN) + ")" +
+                                     " SELECT " + getHistoryColumns() + ", " + NEXT_ROW_VERSION + ", 1" +
+                                     " FROM " + table + " FINAL" +
+                                     " WHERE " + quote("success") + " = " + getBooleanFalse() +
+                                     " AND " + (version ? quote("version") : quote("description")) + " = ?" +
+                                     " AND " + quote(IS_DELETED_COLUMN) + " = 0";
+            return Pair.of(deleteStatement, filter);
+        }
         String deleteStatement = "ALTER STREAM " + table + " DELETE WHERE " + this.quote("success") + " = " + this.getBooleanFalse() + " AND " + (version ? this.quote("version") + " = ?" : this.quote("description") + " = ?");
         return Pair.of(deleteStatement, filter);
     }
 
     @Override
     public String getUpdateStatement(Table table) {
+        if (isVersionedSchemaHistory(table)) {
+            // Append a new version of the row instead of mutating the stream
+            return "INSERT INTO " + table + " (" + getHistoryColumns() + ", " + quote(ROW_VERSION_COLUMN) + ", " + quote(IS_DELETED_COLUMN) + ")" +
+                   " SELECT " + quote("installed_rank") + ", " + quote("version") + ", ?, ?, " + quote("script") + ", ?, " +
+                   quote("installed_by") + ", " + quote("installed_on") + ", " + quote("execution_time") + ", " + quote("success") + ", " +
+                   NEXT_ROW_VERSION + ", 0" +
+                   " FROM " + table + " FINAL" +
+                   " WHERE " + quote("installed_rank") + " = ? AND " + quote(IS_DELETED_COLUMN) + " = 0";
+        }
         return "ALTER STREAM " + table
                + " UPDATE "
                + quote("description") + "=? , "
@@ -162,4 +272,31 @@ public class TimeplusDatabase extends Database<TimeplusConnection> {
                + quote("checksum") + "=?"
                + " WHERE " + quote("installed_rank") + "=?";
     }
+
+    private String getHistoryColumns() {
+        return Arrays.stream(HISTORY_COLUMNS).map(this::quote).collect(Collectors.joining(", "));
+    }
+
+    private boolean isVersionedSchemaHistoryConfigured() {
+        return configuration.getPluginRegister().getPlugin(TimeplusConfigurationExtension.class).isVersionedSchemaHistory();
+    }
+
+    /**
+     * The layout of an existing schema history stream wins over the configuration, so that toggling
+     * {@code versionedSchemaHistory} never breaks a stream created with the other layout.
+     */
+    private boolean isVersionedSchemaHistory(Table table) {
+        if (versionedSchemaHistory == null) {
+            try {
+                String engine = getInventory(table.getSchema().getName()).getEngine(table.getName());
+                if (engine == null) {
+                    return isVersionedSchemaHistoryConfigured();
+                }
+                versionedSchemaHistory = engine.endsWith("ReplacingMergeTree");
+            } catch (SQLException e) {
+                throw new FlywaySqlException("Unable to determine the engine of " + table, e);
+            }
+        }
+        return versionedSchemaHistory;
+    }
 }
@@ -23,12 +23,15 @@ package org.flywaydb.community.database.timeplus;
 import org.flywaydb.community.database.TimeplusDatabaseExtension;
 import org.flywaydb.core.api.ResourceProvider;
 import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.callback.CallbackExecutor;
 import org.flywaydb.core.internal.database.base.BaseDatabaseType;
 import org.flywaydb.core.internal.database.base.CommunityDatabaseType;
 import org.flywaydb.core.internal.jdbc.JdbcConnectionFactory;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 import org.flywaydb.core.internal.jdbc.StatementInterceptor;
 import org.flywaydb.core.internal.parser.Parser;
 import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.sqlscript.SqlScriptExecutorFactory;
 
 import java.sql.Connection;
 
@@ -73,6 +76,13 @@ public class TimeplusDatabaseType extends BaseDatabaseType implements CommunityD
         return new TimeplusParser(configuration, parsingContext, 3);
     }
 
+    @Override
+    public SqlScriptExecutorFactory createSqlScriptExecutorFactory(JdbcConnectionFactory jdbcConnectionFactory, CallbackExecutor callbackExecutor, StatementInterceptor statementInterceptor) {
+        return (connection, undo, batch, outputQueryResults) -> new TimeplusSqlScriptExecutor(
+                new JdbcTemplate(connection, this), callbackExecutor, undo,
+                jdbcConnectionFactory.isSupportsBatch() && batch, outputQueryResults, statementInterceptor);
+    }
+
     @Override
     public boolean detectUserRequiredByUrl(String url) {
         return !url.contains("user=");
@@ -0,0 +1,119 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.timeplus;
+
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The streams, views and materialized views of a database, loaded once per Flyway command.
+ * <p>
+ * They are read, along with the views depending on them, in a single query over {@code system.tables}. Functions and
+ * format schemas are not part of the inventory: they are global to the server rather than scoped to a database, see
+ * {@link TimeplusDatabase#getServerObjects()}.
+ * <p>
+ * DDL issued through {@link TimeplusSchema} discards the inventory of its database. DDL run by SQL scripts (migrations
+ * as well as the schema history create script) cannot be tracked precisely and makes every loaded inventory stale
+ * instead, see {@link #ddlExecuted()}.
+ */
+public class TimeplusInventory {
+    /**
+     * Incremented whenever a SQL script runs DDL. An inventory loaded before the last increment is stale.
+     */
+    private static final AtomicLong DDL_GENERATION = new AtomicLong();
+
+    private final long generation;
+    private final List<String[]> streamRows;
+    private final Set<String> streams = new TreeSet<>();
+
+    private TimeplusInventory(long generation, List<String[]> streamRows) {
+        this.generation = generation;
+        this.streamRows = streamRows;
+        for (String[] row : streamRows) {
+            streams.add(row[0]);
+        }
+    }
+
+    /**
+     * @param jdbcTemplate The template of the system connection.
+     * @param schema       The database to list.
+     */
+    public static TimeplusInventory load(JdbcTemplate jdbcTemplate, String schema) throws SQLException {
+        long generation = getDdlGeneration();
+        List<String[]> rows = jdbcTemplate.query(
+                "SELECT name, engine, create_table_query, dependency_database, dependency_table FROM system.tables" +
+                        " LEFT ARRAY JOIN dependencies_database AS dependency_database, dependencies_table AS dependency_table" +
+                        " WHERE database = ?",
+                rs -> new String[]{rs.getString(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getString(5)},
+                schema);
+        return new TimeplusInventory(generation, rows);
+    }
+
+    /**
+     * Marks every inventory loaded so far as stale, after a SQL script ran a DDL statement.
+     */
+    static void ddlExecuted() {
+        DDL_GENERATION.incrementAndGet();
+    }
+
+    static long getDdlGeneration() {
+        return DDL_GENERATION.get();
+    }
+
+    /**
+     * @return Whether a SQL script ran DDL since this inventory was loaded.
+     */
+    public boolean isStale() {
+        return generation != getDdlGeneration();
+    }
+
+    public boolean isEmpty() {
+        return streams.isEmpty();
+    }
+
+    /**
+     * @return The names of all streams, views and materialized views, including the inner streams of materialized views.
+     */
+    public Set<String> getStreams() {
+        return Collections.unmodifiableSet(streams);
+    }
+
+    /**
+     * @return One row of name, engine, create query, dependency database and dependency table per dependent view of
+     * every stream, or a single row with empty dependency columns.
+     */
+    List<String[]> getStreamRows() {
+        return Collections.unmodifiableList(streamRows);
+    }
+
+    /**
+     * @return The engine of the given stream, or {@code null} if it does not exist.
+     */
+    public String getEngine(String stream) {
+        return streamRows.stream().filter(row -> row[0].equals(stream)).map(row -> row[1]).findFirst().orElse(null);
+    }
+}
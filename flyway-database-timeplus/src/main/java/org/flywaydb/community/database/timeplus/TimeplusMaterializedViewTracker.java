@@ -0,0 +1,181 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.timeplus;
+
+import lombok.CustomLog;
+import org.flywaydb.core.api.FlywayException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.util.StringUtils;
+
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Waits for the materialized views created by a migration to catch up with their source streams, so that the next
+ * migration can rely on the data they have processed.
+ * <p>
+ * A view has caught up once its lag is zero or less. By default the lag is the difference between the sequence number
+ * committed to the source stream and the one checkpointed by the view, as recorded in {@code system.stream_state_log}.
+ * A view without a checkpoint yet has not caught up. Editions recording their checkpoints elsewhere configure
+ * {@code flyway.timeplus.materializedViewLagQuery} instead, which receives the view as its only parameter.
+ */
+@CustomLog
+public class TimeplusMaterializedViewTracker {
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private static final Pattern MATERIALIZED_VIEW = Pattern.compile(
+            "^CREATE\\s+MATERIALIZED\\s+VIEW\\s+(?:IF\\s+NOT\\s+EXISTS\\s+)?((?:`[^`]+`|\"[^\"]+\"|[\\w.])+)",
+            Pattern.CASE_INSENSITIVE);
+
+    private static final String DEFAULT_LAG_QUERY =
+            "SELECT to_int64(max_if(state_value, state_name = 'committed_sn')) - to_int64(max_if(state_value, state_name = 'processed_sn'))" +
+                    " FROM table(system.stream_state_log)" +
+                    " WHERE database = if(? = '', current_database(), ?) AND name = ?" +
+                    " HAVING count() > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long timeoutMillis;
+    private final String lagQuery;
+
+    /**
+     * The views created since the last barrier.
+     */
+    private final Set<String> pendingViews = new LinkedHashSet<>();
+
+    /**
+     * @param jdbcTemplate   The template of the connection the migration runs on.
+     * @param timeoutSeconds How long to wait for the views to catch up before failing.
+     * @param lagQuery       A query returning the lag of the view passed as its only parameter, or {@code null} to read
+     *                       it from {@code system.stream_state_log}.
+     */
+    public TimeplusMaterializedViewTracker(JdbcTemplate jdbcTemplate, int timeoutSeconds, String lagQuery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        this.lagQuery = lagQuery;
+    }
+
+    public static boolean isMaterializedView(String sql) {
+        return MATERIALIZED_VIEW.matcher(TimeplusParser.stripLeadingComments(sql)).find();
+    }
+
+    /**
+     * Records a statement which has been executed successfully.
+     */
+    public void afterStatement(String sql) {
+        Matcher matcher = MATERIALIZED_VIEW.matcher(TimeplusParser.stripLeadingComments(sql));
+        if (matcher.find()) {
+            pendingViews.add(matcher.group(1));
+        }
+    }
+
+    /**
+     * Waits until all views created since the last barrier have caught up.
+     *
+     * @throws FlywayException if the views did not catch up in time.
+     */
+    public void await() throws SQLException {
+        for (String view : pendingViews) {
+            awaitLag(view);
+        }
+        pendingViews.clear();
+    }
+
+    private void awaitLag(String view) throws SQLException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (true) {
+            String lag = queryLag(view);
+            if (lag == null) {
+                LOG.info("Waiting for materialized view " + view + " to checkpoint");
+                sleepUntil(deadline, view, "no checkpoint yet");
+                continue;
+            }
+            if (Long.parseLong(lag.trim()) <= 0) {
+                LOG.info("Materialized view " + view + " has caught up");
+                return;
+            }
+            LOG.info("Waiting for materialized view " + view + " to catch up: lag " + lag);
+            sleepUntil(deadline, view, "lag " + lag);
+        }
+    }
+
+    /**
+     * @return The lag of the given view, or {@code null} if it has not checkpointed yet.
+     */
+    private String queryLag(String view) throws SQLException {
+        if (StringUtils.hasText(lagQuery)) {
+            return jdbcTemplate.queryForString(lagQuery, view);
+        }
+        String database = "";
+        String name = view;
+        int dot = indexOfUnquotedDot(view);
+        if (dot >= 0) {
+            database = unquote(view.substring(0, dot));
+            name = view.substring(dot + 1);
+        }
+        try {
+            return jdbcTemplate.queryForString(DEFAULT_LAG_QUERY, database, database, unquote(name));
+        } catch (SQLException e) {
+            throw new FlywayException("Unable to read the lag of materialized view " + view + " from system.stream_state_log."
+                    + " Configure flyway.timeplus.materializedViewLagQuery for this Timeplus edition", e);
+        }
+    }
+
+    private static int indexOfUnquotedDot(String name) {
+        char quote = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '`' || c == '"') {
+                quote = c;
+            } else if (c == '.') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String unquote(String name) {
+        if (name.length() >= 2 && (name.charAt(0) == '`' || name.charAt(0) == '"') && name.charAt(name.length() - 1) == name.charAt(0)) {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    private void sleepUntil(long deadline, String view, String progress) {
+        if (System.currentTimeMillis() > deadline) {
+            throw new FlywayException("Timed out after " + TimeUnit.MILLISECONDS.toSeconds(timeoutMillis)
+                    + "s waiting for materialized view " + view + " to catch up (" + progress + ")");
+        }
+        try {
+            Thread.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FlywayException("Interrupted while waiting for materialized view " + view, e);
+        }
+    }
+}
@@ -22,13 +22,18 @@ package org.flywaydb.community.database.timeplus;
 
 import org.flywaydb.core.api.configuration.Configuration;
 import org.flywaydb.core.internal.parser.*;
+import org.flywaydb.core.internal.sqlscript.Delimiter;
+import org.flywaydb.core.internal.sqlscript.ParsedSqlStatement;
 
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.List;
 
 public class TimeplusParser extends Parser {
     private static final String ALTERNATIVE_QUOTE = "$$";
+    private static final String SEEK_TO = "seek_to";
+    private static final String SETTINGS = "SETTINGS";
+    private static final String BACKFILL_SETTING = "seek_to = 'earliest'";
 
     protected TimeplusParser(Configuration configuration, ParsingContext parsingContext, int peekDepth) {
         super(configuration, parsingContext, peekDepth);
@@ -44,16 +49,112 @@ public class TimeplusParser extends Parser {
 
     @Override
     protected Token handleAlternativeStringLiteral(PeekingReader reader, ParserContext context, int pos, int line, int col) throws IOException {
-        String alternativeQuoteOpen = ALTERNATIVE_QUOTE;
-        String alternativeQuoteEnd = ALTERNATIVE_QUOTE;
+        // UDF bodies can be several megabytes of JavaScript. The recorder already captures them as part of the
+        // statement, so the body is skipped instead of being read into a token of its own.
+        reader.swallow(ALTERNATIVE_QUOTE.length());
+        reader.swallowUntilExcluding(ALTERNATIVE_QUOTE);
+        reader.swallow(ALTERNATIVE_QUOTE.length());
 
-        String text;
+        return new Token(TokenType.STRING, pos, line, col, "", "", context.getParensDepth());
+    }
+
+    @Override
+    protected ParsedSqlStatement createStatement(PeekingReader reader, Recorder recorder, int statementPos, int statementLine,
+                                                 int statementCol, int nonCommentPartPos, int nonCommentPartLine,
+                                                 int nonCommentPartCol, StatementType statementType, boolean canExecuteInTransaction,
+                                                 Delimiter delimiter, String sql, List<Token> tokens, boolean batchable) throws IOException {
+        if (isMaterializedViewBackfill() && TimeplusMaterializedViewTracker.isMaterializedView(sql)) {
+            // Let the view process the historical data of its sources, not only the events arriving after its creation.
+            // The setting goes on its own line, as the statement may end with a comment.
+            List<String> settings = getTrailingSettings(tokens);
+            if (settings == null) {
+                sql = sql + "\n" + SETTINGS + " " + BACKFILL_SETTING;
+            } else if (settings.stream().noneMatch(SEEK_TO::equalsIgnoreCase)) {
+                sql = sql + "\n, " + BACKFILL_SETTING;
+            }
+        }
+        return super.createStatement(reader, recorder, statementPos, statementLine, statementCol, nonCommentPartPos,
+                nonCommentPartLine, nonCommentPartCol, statementType, canExecuteInTransaction, delimiter, sql, tokens, batchable);
+    }
 
-        reader.swallow(alternativeQuoteOpen.length());
-        text = reader.readUntilExcluding(alternativeQuoteOpen, alternativeQuoteEnd);
-        reader.swallow(alternativeQuoteEnd.length());
+    /**
+     * @return The names of the settings of the {@code SETTINGS} clause which ends the statement outside of any
+     * parentheses, or {@code null} if it does not end with one. Settings of subqueries and text in comments or string
+     * literals are ignored.
+     */
+    static List<String> getTrailingSettings(List<Token> tokens) {
+        int start = tokens.size() - 1;
+        while (start >= 0 && !(tokens.get(start).getType() == TokenType.KEYWORD && tokens.get(start).getParensDepth() == 0
+                && SETTINGS.equalsIgnoreCase(tokens.get(start).getText()))) {
+            start--;
+        }
+        if (start < 0) {
+            return null;
+        }
 
-        return new Token(TokenType.STRING, pos, line, col, text, text, context.getParensDepth());
+        // The clause must only consist of name = value pairs separated by commas
+        List<String> names = new ArrayList<>();
+        boolean expectName = true;
+        boolean expectEquals = false;
+        boolean expectValue = false;
+        for (Token token : tokens.subList(start + 1, tokens.size())) {
+            TokenType type = token.getType();
+            if (type == TokenType.COMMENT || type == TokenType.BLANK_LINES) {
+                continue;
+            }
+            if (token.getParensDepth() != 0) {
+                return null;
+            }
+            boolean word = type == TokenType.KEYWORD || type == TokenType.IDENTIFIER;
+            if (expectName && word) {
+                names.add(token.getText());
+                expectName = false;
+                expectEquals = true;
+            } else if (expectEquals && isSymbol(token, "=")) {
+                expectEquals = false;
+                expectValue = true;
+            } else if (expectValue && isSymbol(token, "-")) {
+                // The sign of a negative number
+            } else if (expectValue && (word || type == TokenType.STRING || type == TokenType.NUMERIC)) {
+                expectValue = false;
+            } else if (!expectName && !expectEquals && !expectValue && isSymbol(token, ",")) {
+                expectName = true;
+            } else {
+                return null;
+            }
+        }
+        return expectName || expectEquals || expectValue ? null : names;
+    }
+
+    private static boolean isSymbol(Token token, String symbol) {
+        return token.getType() == TokenType.SYMBOL && symbol.equals(token.getText());
+    }
+
+    private boolean isMaterializedViewBackfill() {
+        TimeplusConfigurationExtension extension = configuration.getPluginRegister().getPlugin(TimeplusConfigurationExtension.class);
+        return extension != null && extension.isMaterializedViewBackfill();
+    }
+
+    /**
+     * @return The SQL of a statement without the comments the parser keeps in front of it: {@code --} and {@code //}
+     * line comments, as recognized by {@link #isSingleLineComment}, and block comments.
+     */
+    static String stripLeadingComments(String sql) {
+        int pos = 0;
+        while (true) {
+            while (pos < sql.length() && Character.isWhitespace(sql.charAt(pos))) {
+                pos++;
+            }
+            if (sql.startsWith("--", pos) || sql.startsWith("//", pos)) {
+                int end = sql.indexOf('\n', pos);
+                pos = end < 0 ? sql.length() : end + 1;
+            } else if (sql.startsWith("/*", pos)) {
+                int end = sql.indexOf("*/", pos + 2);
+                pos = end < 0 ? sql.length() : end + 2;
+            } else {
+                return sql.substring(pos);
+            }
+        }
     }
 
     @Override
@@ -25,7 +25,9 @@ import org.flywaydb.core.internal.jdbc.JdbcTemplate;
 import org.flywaydb.core.internal.util.StringUtils;
 
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public class TimeplusSchema extends Schema<TimeplusDatabase, TimeplusTable> {
@@ -50,10 +52,15 @@ public class TimeplusSchema extends Schema<TimeplusDatabase, TimeplusTable> {
 
     @Override
     protected boolean doEmpty() throws SQLException {
-        TimeplusConnection systemConnection = database.getSystemConnection();
-        int objectCount = systemConnection.getJdbcTemplate().queryForInt("SELECT COUNT() FROM system.tables WHERE database = ?", name) + getObjectCount("FUNCTION")
-                + getObjectCount("FORMAT SCHEMA");
-        return objectCount == 0;
+        if (!database.getInventory(name).isEmpty()) {
+            return false;
+        }
+        for (List<String> objects : database.getServerObjects().values()) {
+            if (!objects.isEmpty()) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -62,6 +69,7 @@ public class TimeplusSchema extends Schema<TimeplusDatabase, TimeplusTable> {
         String clusterName = database.getClusterName();
         boolean isClustered = StringUtils.hasText(clusterName);
         systemConnection.getJdbcTemplate().executeStatement("CREATE DATABASE " + database.quote(name) + (false && isClustered ? (" ON CLUSTER " + clusterName) : ""));
+        database.invalidateInventory(name);
     }
 
     @Override
@@ -72,27 +80,32 @@ public class TimeplusSchema extends Schema<TimeplusDatabase, TimeplusTable> {
         String clusterName = database.getClusterName();
         boolean isClustered = StringUtils.hasText(clusterName);
         jdbcTemplate.executeStatement("DROP DATABASE " + database.quote(name) + (isClustered ? (" ON CLUSTER " + clusterName) : ""));
+        database.invalidateInventory(name);
     }
 
     @Override
     protected void doClean() throws SQLException {
-        // TODO: this will drop streams, views, materialized views, when there are dependencies, DROP could fail.
-        for (TimeplusTable table : allTables()) {
-            table.drop();
-        }
-        for (String dropStatement : generateDropStatements("FORMAT SCHEMA")) {
-            jdbcTemplate.execute(dropStatement);
-        }
-
-        for (String dropStatement : generateDropStatements("FUNCTION")) {
-            jdbcTemplate.execute(dropStatement);
+        TimeplusInventory inventory = database.getInventory(name);
+        try {
+            new TimeplusCleaner(jdbcTemplate, database, name).clean(inventory);
+
+            // Format schemas and functions are global to the server. They are still dropped as they always were, and
+            // forgotten once dropped so that cleaning several databases in a row does not drop them twice.
+            for (Map.Entry<String, List<String>> entry : database.getServerObjects().entrySet()) {
+                Iterator<String> objects = entry.getValue().iterator();
+                while (objects.hasNext()) {
+                    jdbcTemplate.execute("DROP " + entry.getKey() + " " + database.quote(objects.next()));
+                    objects.remove();
+                }
+            }
+        } finally {
+            database.invalidateInventory(name);
         }
     }
 
     @Override
     protected TimeplusTable[] doAllTables() throws SQLException {
-        TimeplusConnection systemConnection = database.getSystemConnection();
-        return systemConnection.getJdbcTemplate().queryForStringList("SELECT name FROM system.tables WHERE database = ?", name)
+        return database.getInventory(name).getStreams()
                 .stream()
                 .map(this::getTable)
                 .toArray(TimeplusTable[]::new);
@@ -102,15 +115,4 @@ public class TimeplusSchema extends Schema<TimeplusDatabase, TimeplusTable> {
     public TimeplusTable getTable(String tableName) {
         return new TimeplusTable(jdbcTemplate, database, this, tableName);
     }
-
-    private int getObjectCount(String objectType) throws SQLException {
-        return jdbcTemplate.query("SHOW " + objectType + "S", rs -> 1).size();
-    }
-
-    private List<String> generateDropStatements(final String objectType) throws SQLException {
-        return jdbcTemplate.query("SHOW " + objectType + "S", rs -> {
-            String resName = rs.getString("name");
-            return "DROP " + objectType + " " + database.quote(resName);
-        });
-    }
 }
@@ -0,0 +1,86 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.timeplus;
+
+import org.flywaydb.core.api.configuration.Configuration;
+import org.flywaydb.core.internal.callback.CallbackExecutor;
+import org.flywaydb.core.internal.exception.FlywaySqlException;
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.Results;
+import org.flywaydb.core.internal.jdbc.StatementInterceptor;
+import org.flywaydb.core.internal.sqlscript.DefaultSqlScriptExecutor;
+import org.flywaydb.core.internal.sqlscript.SqlScript;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.regex.Pattern;
+
+public class TimeplusSqlScriptExecutor extends DefaultSqlScriptExecutor {
+    private static final Pattern DDL = Pattern.compile(
+            "^(?:CREATE|DROP|ALTER|RENAME|TRUNCATE|EXCHANGE|ATTACH|DETACH)\\b", Pattern.CASE_INSENSITIVE);
+
+    private TimeplusMaterializedViewTracker materializedViewTracker;
+
+    public TimeplusSqlScriptExecutor(JdbcTemplate jdbcTemplate, CallbackExecutor callbackExecutor, boolean undo,
+                                     boolean batch, boolean outputQueryResults, StatementInterceptor statementInterceptor) {
+        super(jdbcTemplate, callbackExecutor, undo, batch, outputQueryResults, statementInterceptor);
+    }
+
+    @Override
+    public List<Results> execute(SqlScript sqlScript, Configuration config) {
+        TimeplusConfigurationExtension extension = config.getPluginRegister().getPlugin(TimeplusConfigurationExtension.class);
+        if (extension.isMaterializedViewCatchUp()) {
+            materializedViewTracker = new TimeplusMaterializedViewTracker(jdbcTemplate,
+                    extension.getMaterializedViewCatchUpTimeoutSeconds(), extension.getMaterializedViewLagQuery());
+        }
+
+        try {
+            List<Results> results = super.execute(sqlScript, config);
+            if (materializedViewTracker != null) {
+                // The end of the script is a migration boundary: the next migration may read what the views produce
+                materializedViewTracker.await();
+            }
+            return results;
+        } catch (SQLException e) {
+            throw new FlywaySqlException("Unable to complete Timeplus script execution", e);
+        } finally {
+            materializedViewTracker = null;
+        }
+    }
+
+    @Override
+    protected Results executeStatement(JdbcTemplate jdbcTemplate, SqlScript sqlScript, SqlStatement sqlStatement, Configuration config) {
+        Results results;
+        try {
+            results = super.executeStatement(jdbcTemplate, sqlScript, sqlStatement, config);
+        } finally {
+            if (DDL.matcher(TimeplusParser.stripLeadingComments(sqlStatement.getSql())).find()) {
+                // Even a failed statement may have changed some of the metadata
+                TimeplusInventory.ddlExecuted();
+            }
+        }
+        if (materializedViewTracker != null) {
+            materializedViewTracker.afterStatement(sqlStatement.getSql());
+        }
+        return results;
+    }
+}
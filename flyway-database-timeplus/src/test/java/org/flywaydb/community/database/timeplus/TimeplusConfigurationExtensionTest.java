@@ -0,0 +1,68 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.flywaydb.community.database.timeplus;
+
+import org.flywaydb.core.api.FlywayException;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TimeplusConfigurationExtensionTest {
+
+    @Test
+    void reads_the_lag_from_the_system_tables_unless_overridden() {
+        // given
+        TimeplusConfigurationExtension extension = new TimeplusConfigurationExtension();
+
+        // when
+        extension.extractParametersFromConfiguration(new HashMap<>(Map.of("flyway.timeplus.materializedViewCatchUp", "true")));
+
+        // then
+        assertThat(extension.isMaterializedViewCatchUp()).isTrue();
+        assertThat(extension.getMaterializedViewLagQuery()).isNull();
+    }
+
+    @Test
+    void accepts_a_lag_query_taking_the_view() {
+        // given
+        TimeplusConfigurationExtension extension = new TimeplusConfigurationExtension();
+
+        // when
+        extension.extractParametersFromConfiguration(new HashMap<>(Map.of("flyway.timeplus.materializedViewLagQuery", "SELECT lag FROM mv_lag WHERE view = ?")));
+
+        // then
+        assertThat(extension.getMaterializedViewLagQuery()).isEqualTo("SELECT lag FROM mv_lag WHERE view = ?");
+    }
+
+    @Test
+    void rejects_a_lag_query_without_exactly_one_placeholder() {
+        TimeplusConfigurationExtension extension = new TimeplusConfigurationExtension();
+
+        assertThatThrownBy(() -> extension.extractParametersFromConfiguration(new HashMap<>(Map.of("flyway.timeplus.materializedViewLagQuery", "SELECT max(lag) FROM mv_lag"))))
+                .isInstanceOf(FlywayException.class)
+                .hasMessageContaining("flyway.timeplus.materializedViewLagQuery");
+        assertThatThrownBy(() -> extension.extractParametersFromConfiguration(new HashMap<>(Map.of("flyway.timeplus.materializedViewLagQuery", "SELECT lag FROM mv_lag WHERE database = ? AND view = ?"))))
+                .isInstanceOf(FlywayException.class);
+    }
+}
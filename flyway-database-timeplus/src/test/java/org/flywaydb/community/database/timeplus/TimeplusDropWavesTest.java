@@ -0,0 +1,61 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+package org.flywaydb.community.database.timeplus;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeplusDropWavesTest {
+
+    @Test
+    void drops_views_before_their_sources_and_targets() {
+        // given
+        Map<String, Set<String>> dropGraph = Map.of(
+                "clicks", Set.of("clicks_mv"),
+                "clicks_mv", Set.of(),
+                "clicks_per_minute", Set.of("clicks_mv", "clicks_per_minute_view"),
+                "clicks_per_minute_view", Set.of());
+
+        // when
+        List<List<String>> waves = TimeplusDropWaves.compute(dropGraph);
+
+        // then
+        assertThat(waves).containsExactly(List.of("clicks_mv", "clicks_per_minute_view"), List.of("clicks", "clicks_per_minute"));
+    }
+
+    @Test
+    void drops_a_cycle_in_alphabetical_order() {
+        assertThat(TimeplusDropWaves.compute(Map.of("b", Set.of("a"), "a", Set.of("b"))))
+                .containsExactly(List.of("a", "b"));
+    }
+
+    @Test
+    void resolves_names_local_to_the_schema() {
+        assertThat(TimeplusDropWaves.localName("clicks", "default")).isEqualTo("clicks");
+        assertThat(TimeplusDropWaves.localName("`default`.`clicks.raw`", "default")).isEqualTo("clicks.raw");
+        assertThat(TimeplusDropWaves.localName("other.clicks", "default")).isNull();
+    }
+}
@@ -0,0 +1,55 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.flywaydb.community.database.timeplus;
+
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.flywaydb.core.internal.jdbc.RowMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeplusInventoryTest {
+
+    @Test
+    void goes_stale_once_a_script_runs_ddl() throws Exception {
+        // given
+        TimeplusInventory inventory = TimeplusInventory.load(emptyJdbcTemplate(), "default");
+        assertThat(inventory.isStale()).isFalse();
+
+        // when
+        TimeplusInventory.ddlExecuted();
+
+        // then
+        assertThat(inventory.isStale()).isTrue();
+        assertThat(TimeplusInventory.load(emptyJdbcTemplate(), "default").isStale()).isFalse();
+    }
+
+    private static JdbcTemplate emptyJdbcTemplate() {
+        return new JdbcTemplate(null, 0) {
+            @Override
+            public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... params) {
+                return new ArrayList<>();
+            }
+        };
+    }
+}
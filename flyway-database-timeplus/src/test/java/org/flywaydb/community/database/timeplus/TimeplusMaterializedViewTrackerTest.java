@@ -0,0 +1,99 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+package org.flywaydb.community.database.timeplus;
+
+import org.flywaydb.core.internal.jdbc.JdbcTemplate;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeplusMaterializedViewTrackerTest {
+
+    @Test
+    void waits_for_a_checkpoint_in_the_state_log_by_default() throws Exception {
+        // given
+        LagJdbcTemplate jdbcTemplate = new LagJdbcTemplate(null, "0");
+        TimeplusMaterializedViewTracker tracker = new TimeplusMaterializedViewTracker(jdbcTemplate, 60, null);
+        tracker.afterStatement("CREATE MATERIALIZED VIEW analytics.`clicks_mv` INTO clicks_per_minute AS SELECT 1");
+
+        // when
+        tracker.await();
+
+        // then
+        assertThat(jdbcTemplate.queries).hasSize(2);
+        assertThat(jdbcTemplate.queries.get(0)).contains("system.stream_state_log");
+        assertThat(jdbcTemplate.parameters.get(0)).containsExactly("analytics", "analytics", "clicks_mv");
+    }
+
+    @Test
+    void resolves_an_unqualified_view_in_the_current_database() throws Exception {
+        // given
+        LagJdbcTemplate jdbcTemplate = new LagJdbcTemplate("0");
+        TimeplusMaterializedViewTracker tracker = new TimeplusMaterializedViewTracker(jdbcTemplate, 60, null);
+        tracker.afterStatement("CREATE MATERIALIZED VIEW IF NOT EXISTS clicks_mv INTO clicks_per_minute AS SELECT 1");
+
+        // when
+        tracker.await();
+
+        // then
+        assertThat(jdbcTemplate.parameters).containsExactly(List.of("", "", "clicks_mv"));
+    }
+
+    @Test
+    void passes_the_view_to_a_custom_lag_query() throws Exception {
+        // given
+        LagJdbcTemplate jdbcTemplate = new LagJdbcTemplate("-1");
+        TimeplusMaterializedViewTracker tracker = new TimeplusMaterializedViewTracker(jdbcTemplate, 60, "SELECT lag FROM mv_lag WHERE view = ?");
+        tracker.afterStatement("CREATE MATERIALIZED VIEW analytics.clicks_mv INTO clicks_per_minute AS SELECT 1");
+
+        // when
+        tracker.await();
+
+        // then
+        assertThat(jdbcTemplate.queries).containsExactly("SELECT lag FROM mv_lag WHERE view = ?");
+        assertThat(jdbcTemplate.parameters).containsExactly(List.of("analytics.clicks_mv"));
+    }
+
+    /**
+     * Answers each lag query with the next of the given lags, the last one repeating.
+     */
+    private static class LagJdbcTemplate extends JdbcTemplate {
+        private final LinkedList<String> lags = new LinkedList<>();
+        private final List<String> queries = new ArrayList<>();
+        private final List<List<String>> parameters = new ArrayList<>();
+
+        LagJdbcTemplate(String... lags) {
+            super(null, 0);
+            this.lags.addAll(Arrays.asList(lags));
+        }
+
+        @Override
+        public String queryForString(String query, String... params) {
+            queries.add(query);
+            parameters.add(Arrays.asList(params));
+            return lags.size() > 1 ? lags.poll() : lags.peek();
+        }
+    }
+}
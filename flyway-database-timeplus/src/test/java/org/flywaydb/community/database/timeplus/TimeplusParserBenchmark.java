@@ -0,0 +1,112 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+
+package org.flywaydb.community.database.timeplus;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long parsing a script of JavaScript UDFs takes as their bodies grow.
+ * <p>
+ * Not run as part of the build. After {@code mvn test-compile}, run {@link #main} with the test classpath of this
+ * module.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeplusParserBenchmark {
+    private static final int FUNCTIONS = 10;
+
+    /**
+     * The size of every UDF body, in kilobytes.
+     */
+    @Param({"16", "256", "4096"})
+    public int bodyKilobytes;
+
+    private String script;
+
+    @Setup
+    public void setUp() {
+        script = udfScript(FUNCTIONS, bodyKilobytes * 1024);
+    }
+
+    @Benchmark
+    public int parse() {
+        int statements = 0;
+        TimeplusParser parser = new TimeplusParser(new FluentConfiguration(), new ParsingContext(), 3);
+        try (SqlStatementIterator iterator = parser.parse(new StringResource(script))) {
+            while (iterator.hasNext()) {
+                iterator.next();
+                statements++;
+            }
+        }
+        return statements;
+    }
+
+    /**
+     * @return A script of {@code functions} JavaScript UDFs, separated by statements reading from a stream. The bodies
+     * contain the quotes, comments and delimiters a real body would, none of which may split the statement.
+     */
+    static String udfScript(int functions, int bodyLength) {
+        String line = "    if (values[i] === ';') { total += 1; } // don't split on ';' -- or \"here\" /* either */\n";
+        StringBuilder body = new StringBuilder();
+        while (body.length() < bodyLength) {
+            body.append(line);
+        }
+
+        StringBuilder script = new StringBuilder();
+        for (int i = 0; i < functions; i++) {
+            script.append("CREATE OR REPLACE FUNCTION f").append(i).append("(values array(string))\n")
+                    .append("RETURNS int64 LANGUAGE JAVASCRIPT AS $$\n")
+                    .append("  function f").append(i).append("(values) {\n    let total = 0;\n")
+                    .append(body)
+                    .append("    return [total];\n  }\n$$;\n")
+                    .append("SELECT f").append(i).append("(['a', ';']) FROM table(s);\n");
+        }
+        return script.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TimeplusParserBenchmark.class.getSimpleName()).build()).run();
+    }
+}
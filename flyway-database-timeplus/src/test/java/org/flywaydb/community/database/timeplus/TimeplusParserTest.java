@@ -0,0 +1,146 @@
+/*-
+ * ========================LICENSE_START=================================
+ * flyway-database-timeplus
+ * ========================================================================
+ * Copyright (C) 2010 - 2024 Red Gate Software Ltd
+ * ========================================================================
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * =========================LICENSE_END==================================
+ */
+
+
+package org.flywaydb.community.database.timeplus;
+
+import org.flywaydb.core.api.configuration.FluentConfiguration;
+import org.flywaydb.core.internal.parser.ParsingContext;
+import org.flywaydb.core.internal.resource.StringResource;
+import org.flywaydb.core.internal.sqlscript.SqlStatement;
+import org.flywaydb.core.internal.sqlscript.SqlStatementIterator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeplusParserTest {
+
+    @Test
+    void adds_a_settings_clause_for_backfill() {
+        // when
+        List<SqlStatement> statements = parseWithBackfill(
+                "CREATE MATERIALIZED VIEW v INTO t AS SELECT * FROM (SELECT * FROM s SETTINGS max_threads = 1) -- SETTINGS\n;");
+
+        // then
+        assertThat(statements.get(0).getSql()).isEqualTo(
+                "CREATE MATERIALIZED VIEW v INTO t AS SELECT * FROM (SELECT * FROM s SETTINGS max_threads = 1) -- SETTINGS\n"
+                        + "SETTINGS seek_to = 'earliest'");
+    }
+
+    @Test
+    void extends_a_trailing_settings_clause_for_backfill() {
+        // when
+        List<SqlStatement> statements = parseWithBackfill(
+                "CREATE MATERIALIZED VIEW v INTO t AS SELECT * FROM s SETTINGS max_threads = 1, checkpoint_interval = -1;");
+
+        // then
+        assertThat(statements.get(0).getSql()).isEqualTo(
+                "CREATE MATERIALIZED VIEW v INTO t AS SELECT * FROM s SETTINGS max_threads = 1, checkpoint_interval = -1\n"
+                        + ", seek_to = 'earliest'");
+    }
+
+    @Test
+    void keeps_an_explicit_seek_to() {
+        // given
+        String sql = "CREATE MATERIALIZED VIEW v INTO t AS SELECT * FROM s SETTINGS seek_to = 'latest'";
+
+        // when
+        List<SqlStatement> statements = parseWithBackfill(sql + ";");
+
+        // then
+        assertThat(statements.get(0).getSql()).isEqualTo(sql);
+    }
+
+    @Test
+    void ignores_seek_to_in_comments_and_strings() {
+        // when
+        List<SqlStatement> statements = parseWithBackfill("-- seek_to = 'latest'\n"
+                + "CREATE MATERIALIZED VIEW v INTO t AS SELECT 'seek_to' AS seek FROM s /* seek_to */;");
+
+        // then
+        assertThat(statements.get(0).getSql()).endsWith("/* seek_to */\nSETTINGS seek_to = 'earliest'");
+    }
+
+    @Test
+    void leaves_other_statements_alone() {
+        // when
+        List<SqlStatement> statements = parseWithBackfill("CREATE STREAM s (a int) SETTINGS x = 1;");
+
+        // then
+        assertThat(statements.get(0).getSql()).isEqualTo("CREATE STREAM s (a int) SETTINGS x = 1");
+    }
+
+    @Test
+    void keeps_udf_bodies_with_comments_and_delimiters_in_one_statement() {
+        // given
+        String body = "$$\n  function f(values) { // don't split; here\n    return values.map(v => v + ';'); -- nor; here\n  }\n$$";
+
+        // when
+        List<SqlStatement> statements = parse(new TimeplusParser(new FluentConfiguration(), new ParsingContext(), 3),
+                "CREATE FUNCTION f(values array(string)) RETURNS array(string) LANGUAGE JAVASCRIPT AS " + body + ";\n"
+                        + "SELECT f(['a']) FROM table(s);\n"
+                        + TimeplusParserBenchmark.udfScript(3, 4096));
+
+        // then
+        assertThat(statements).hasSize(8);
+        assertThat(statements.get(0).getSql()).endsWith("AS " + body);
+        assertThat(statements.get(1).getSql()).isEqualTo("SELECT f(['a']) FROM table(s)");
+        assertThat(statements.get(2).getSql()).startsWith("CREATE OR REPLACE FUNCTION f0").endsWith("$$");
+        assertThat(statements.get(7).getSql()).isEqualTo("SELECT f2(['a', ';']) FROM table(s)");
+    }
+
+    @Test
+    void treats_double_slash_lines_as_comments() {
+        // when
+        List<SqlStatement> statements = parse(new TimeplusParser(new FluentConfiguration(), new ParsingContext(), 3),
+                "// first; comment\nSELECT 1;\nSELECT 2; // trailing; comment\nSELECT 3 // before; the delimiter\n;");
+
+        // then
+        assertThat(statements).hasSize(3);
+        assertThat(statements.get(0).getSql()).isEqualTo("// first; comment\nSELECT 1");
+        assertThat(statements.get(1).getSql()).isEqualTo("SELECT 2");
+        assertThat(statements.get(2).getSql()).isEqualTo("// trailing; comment\nSELECT 3 // before; the delimiter");
+    }
+
+    @Test
+    void strips_leading_comments() {
+        assertThat(TimeplusParser.stripLeadingComments(" -- a\n// b\n/* c\n */ INSERT -- d")).isEqualTo("INSERT -- d");
+        assertThat(TimeplusParser.stripLeadingComments("-- only a comment")).isEmpty();
+        assertThat(TimeplusParser.stripLeadingComments("SELECT 1")).isEqualTo("SELECT 1");
+    }
+
+    private static List<SqlStatement> parseWithBackfill(String sql) {
+        FluentConfiguration configuration = new FluentConfiguration()
+                .configuration(Map.of("flyway.timeplus.materializedViewBackfill", "true"));
+        return parse(new TimeplusParser(configuration, new ParsingContext(), 3), sql);
+    }
+
+    private static List<SqlStatement> parse(TimeplusParser parser, String sql) {
+        List<SqlStatement> statements = new ArrayList<>();
+        try (SqlStatementIterator iterator = parser.parse(new StringResource(sql))) {
+            iterator.forEachRemaining(statements::add);
+        }
+        return statements;
+    }
+}